@@ -0,0 +1,220 @@
+package code;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Finds the articulation points (nodes whose removal splits the map) and the
+ * bridges (segments whose removal does) of the whole map, treating every
+ * road as two-way.
+ *
+ * This is Hopcroft and Tarjan's depth first search, run with an explicit
+ * stack so it can't overflow on big components, in O(V + E). Each node's
+ * reach back is the smallest depth it or anything below it in the search
+ * tree has an edge to. A child whose reach back is no smaller than its
+ * parent's depth can't get around the parent, so the parent is an
+ * articulation point (the root is one if it has more than one child), and if
+ * it can't reach the parent's depth at all the segment between them is a
+ * bridge.
+ *
+ * The same search also splits the segments into biconnected components
+ * (blocks): groups that stay connected whichever single node is removed.
+ * Segments go on a stack as they're found, and whenever a child turns out
+ * not to get around its parent, everything above the segment to that child
+ * is one block.
+ */
+public class ArticulationPoints {
+	private final int nodeCount;
+	// connected component of each node index, as the CompactGraph has them.
+	private final int[] component;
+	private final int componentCount;
+	// indexed by node index and segment index.
+	private final BitSet articulationPoints = new BitSet();
+	private final BitSet bridges = new BitSet();
+	private final int[] articulationPointCount;
+	private final int[] bridgeCount;
+	// block of each segment index, or -1 for loops, and the segments of each
+	// block: blockSegments[blockOffsets[b]] up to blockOffsets[b + 1].
+	private final int[] segmentBlock;
+	private final int[] blockOffsets;
+	private final int[] blockSegments;
+
+	public ArticulationPoints(CompactGraph compact) {
+		int n = compact.nodeCount;
+		this.nodeCount = n;
+		this.component = compact.component;
+		this.componentCount = compact.componentCount;
+
+		// the undirected graph, with parallel segments kept apart; two
+		// segments between the same nodes are never bridges, and the shared
+		// adjacency lists squeeze them together.
+		int[] offsets = new int[n + 1];
+		for (int s = 0; s < compact.segmentCount; s++) {
+			if (compact.segmentStart[s] == compact.segmentEnd[s])
+				continue;
+			offsets[compact.segmentStart[s] + 1]++;
+			offsets[compact.segmentEnd[s] + 1]++;
+		}
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+		int[] targets = new int[offsets[n]];
+		int[] segs = new int[offsets[n]];
+		int[] fill = new int[n];
+		for (int s = 0; s < compact.segmentCount; s++) {
+			int a = compact.segmentStart[s], b = compact.segmentEnd[s];
+			if (a == b)
+				continue;
+			int k = offsets[a] + fill[a]++;
+			targets[k] = b;
+			segs[k] = s;
+			k = offsets[b] + fill[b]++;
+			targets[k] = a;
+			segs[k] = s;
+		}
+
+		SearchContext search = new SearchContext(n);
+		search.reset();
+		int[] stack = search.stack;
+		segmentBlock = new int[compact.segmentCount];
+		Arrays.fill(segmentBlock, -1);
+		int[] pending = new int[compact.segmentCount];
+		int pendingTop = 0;
+		blockSegments = new int[compact.segmentCount];
+		int[] offsetsOfBlocks = new int[n + 1];
+		int blocks = 0, blocked = 0;
+		for (int root = 0; root < n; root++) {
+			if (search.depthOf(root) != -1)
+				continue;
+			int rootChildren = 0;
+			search.discover(root, 0, -1, -1, offsets[root]);
+			int top = 0;
+			stack[top++] = root;
+			while (top > 0) {
+				int v = stack[top - 1];
+				if (search.cursor[v] < offsets[v + 1]) {
+					int k = search.cursor[v]++;
+					int w = targets[k];
+					if (segs[k] == search.parentSegment[v])
+						continue;
+					int depth = search.depthOf(w);
+					if (depth != -1) {
+						search.reachBack[v] = Math.min(search.reachBack[v], depth);
+						// the edge back up; from the other end it's already
+						// been seen.
+						if (depth < search.depth[v])
+							pending[pendingTop++] = segs[k];
+					} else {
+						pending[pendingTop++] = segs[k];
+						search.discover(w, search.depth[v] + 1, v, segs[k], offsets[w]);
+						stack[top++] = w;
+						if (v == root)
+							rootChildren++;
+					}
+					continue;
+				}
+				// all done below v, so report back to its parent.
+				top--;
+				int p = search.parent[v];
+				if (p == -1)
+					continue;
+				search.reachBack[p] = Math.min(search.reachBack[p], search.reachBack[v]);
+				if (search.reachBack[v] > search.depth[p])
+					bridges.set(search.parentSegment[v]);
+				if (search.reachBack[v] >= search.depth[p]) {
+					if (p != root)
+						articulationPoints.set(p);
+					// v and everything found since it make up a block.
+					int s;
+					do {
+						s = pending[--pendingTop];
+						segmentBlock[s] = blocks;
+						blockSegments[blocked++] = s;
+					} while (s != search.parentSegment[v]);
+					offsetsOfBlocks[++blocks] = blocked;
+				}
+			}
+			if (rootChildren > 1)
+				articulationPoints.set(root);
+		}
+		this.blockOffsets = Arrays.copyOf(offsetsOfBlocks, blocks + 1);
+
+		articulationPointCount = new int[componentCount];
+		bridgeCount = new int[componentCount];
+		for (int v = articulationPoints.nextSetBit(0); v >= 0; v = articulationPoints.nextSetBit(v + 1))
+			articulationPointCount[component[v]]++;
+		for (int s = bridges.nextSetBit(0); s >= 0; s = bridges.nextSetBit(s + 1))
+			bridgeCount[component[compact.segmentStart[s]]]++;
+	}
+
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	/**
+	 * Returns the connected component a node index is in.
+	 */
+	public int componentOf(int node) {
+		return component[node];
+	}
+
+	public boolean isArticulationPoint(int node) {
+		return articulationPoints.get(node);
+	}
+
+	public boolean isBridge(int segment) {
+		return bridges.get(segment);
+	}
+
+	/**
+	 * Returns the node indices of every articulation point.
+	 */
+	public BitSet getArticulationPoints() {
+		return (BitSet) articulationPoints.clone();
+	}
+
+	/**
+	 * Returns the node indices of the articulation points in one component.
+	 */
+	public BitSet getArticulationPoints(int component) {
+		BitSet result = new BitSet(nodeCount);
+		for (int v = articulationPoints.nextSetBit(0); v >= 0; v = articulationPoints.nextSetBit(v + 1))
+			if (this.component[v] == component)
+				result.set(v);
+		return result;
+	}
+
+	/**
+	 * Returns the segment indices of every bridge.
+	 */
+	public BitSet getBridges() {
+		return (BitSet) bridges.clone();
+	}
+
+	public int getBlockCount() {
+		return blockOffsets.length - 1;
+	}
+
+	/**
+	 * Returns the block a segment index is in, or -1 if it's a loop.
+	 */
+	public int blockOf(int segment) {
+		return segmentBlock[segment];
+	}
+
+	/**
+	 * Returns the segment indices in a block.
+	 */
+	public int[] getBlockSegments(int block) {
+		return Arrays.copyOfRange(blockSegments, blockOffsets[block], blockOffsets[block + 1]);
+	}
+
+	public int getArticulationPointCount(int component) {
+		return articulationPointCount[component];
+	}
+
+	public int getBridgeCount(int component) {
+		return bridgeCount[component];
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,173 @@
+package code;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The block-cut tree of the map: one tree node for each block (biconnected
+ * component) and one for each articulation point, with an articulation point
+ * joined to every block it's part of. Any route between two nodes has to go
+ * through exactly the articulation points on the tree path between them, so
+ * "does closing x cut a off from b" comes down to whether x is on that path.
+ * That's an ancestor check and a lowest common ancestor lookup, which with
+ * binary lifting is O(log n).
+ *
+ * Tree nodes 0 to blockCount - 1 are the blocks, and after that come the
+ * articulation points.
+ */
+public class BlockCutTree {
+	private final ArticulationPoints aps;
+	private final int blockCount;
+	// tree node of each articulation point, by node index, or -1.
+	private final int[] cutNode;
+	// the tree node each map node is in: its own if it's an articulation
+	// point, otherwise its block. -1 if it has no segments.
+	private final int[] treeNode;
+	// depth first entry and exit times, for ancestor checks.
+	private final int[] enter, exit;
+	// up[j][t] is the 2^j-th ancestor of tree node t (a root is its own).
+	private final int[][] up;
+
+	public BlockCutTree(CompactGraph compact, ArticulationPoints aps) {
+		this.aps = aps;
+		int n = compact.nodeCount;
+		blockCount = aps.getBlockCount();
+		cutNode = new int[n];
+		Arrays.fill(cutNode, -1);
+		BitSet cuts = aps.getArticulationPoints();
+		int size = blockCount;
+		for (int v = cuts.nextSetBit(0); v >= 0; v = cuts.nextSetBit(v + 1))
+			cutNode[v] = size++;
+
+		treeNode = new int[n];
+		Arrays.fill(treeNode, -1);
+		// tree edges, one per block and articulation point it contains.
+		int[] edgeBlock = new int[16], edgeCut = new int[16];
+		int edges = 0;
+		int[] lastBlock = new int[n];
+		Arrays.fill(lastBlock, -1);
+		for (int b = 0; b < blockCount; b++) {
+			for (int s : aps.getBlockSegments(b)) {
+				for (int v : new int[] { compact.segmentStart[s], compact.segmentEnd[s] }) {
+					if (cutNode[v] == -1) {
+						treeNode[v] = b;
+						continue;
+					}
+					treeNode[v] = cutNode[v];
+					if (lastBlock[v] == b)
+						continue;
+					lastBlock[v] = b;
+					if (edges == edgeBlock.length) {
+						edgeBlock = Arrays.copyOf(edgeBlock, edges * 2);
+						edgeCut = Arrays.copyOf(edgeCut, edges * 2);
+					}
+					edgeBlock[edges] = b;
+					edgeCut[edges] = cutNode[v];
+					edges++;
+				}
+			}
+		}
+
+		int[] offsets = new int[size + 1];
+		for (int e = 0; e < edges; e++) {
+			offsets[edgeBlock[e] + 1]++;
+			offsets[edgeCut[e] + 1]++;
+		}
+		for (int t = 0; t < size; t++)
+			offsets[t + 1] += offsets[t];
+		int[] targets = new int[offsets[size]];
+		int[] fill = new int[size];
+		for (int e = 0; e < edges; e++) {
+			targets[offsets[edgeBlock[e]] + fill[edgeBlock[e]]++] = edgeCut[e];
+			targets[offsets[edgeCut[e]] + fill[edgeCut[e]]++] = edgeBlock[e];
+		}
+
+		// depth first over each tree of the forest, without recursion.
+		int levels = 1;
+		while ((1 << levels) < size)
+			levels++;
+		up = new int[levels][size];
+		enter = new int[size];
+		exit = new int[size];
+		Arrays.fill(enter, -1);
+		int[] stack = new int[size];
+		int[] cursor = new int[size];
+		int clock = 0;
+		for (int root = 0; root < size; root++) {
+			if (enter[root] != -1)
+				continue;
+			int top = 0;
+			stack[top++] = root;
+			up[0][root] = root;
+			enter[root] = clock++;
+			cursor[root] = offsets[root];
+			while (top > 0) {
+				int t = stack[top - 1];
+				if (cursor[t] < offsets[t + 1]) {
+					int child = targets[cursor[t]++];
+					if (enter[child] != -1)
+						continue;
+					up[0][child] = t;
+					enter[child] = clock++;
+					cursor[child] = offsets[child];
+					stack[top++] = child;
+				} else {
+					exit[t] = clock++;
+					top--;
+				}
+			}
+		}
+		for (int j = 1; j < levels; j++)
+			for (int t = 0; t < size; t++)
+				up[j][t] = up[j - 1][up[j - 1][t]];
+	}
+
+	public ArticulationPoints getArticulationPoints() {
+		return aps;
+	}
+
+	/**
+	 * Returns true if closing node index x would leave no route between node
+	 * indices a and b (which aren't x) where there was one before.
+	 */
+	public boolean separates(int x, int a, int b) {
+		if (x == a || x == b || cutNode[x] == -1)
+			return false;
+		if (treeNode[a] == -1 || treeNode[b] == -1
+				|| aps.componentOf(a) != aps.componentOf(b))
+			return false;
+		int ta = treeNode[a], tb = treeNode[b], tx = cutNode[x];
+		if (!isAncestor(tx, ta) && !isAncestor(tx, tb))
+			return false;
+		return isAncestor(lca(ta, tb), tx);
+	}
+
+	/**
+	 * Returns the node indices that can be reached from node index from now,
+	 * but couldn't be if node index x were closed.
+	 */
+	public BitSet cutOff(int x, int from) {
+		BitSet result = new BitSet(treeNode.length);
+		for (int v = 0; v < treeNode.length; v++)
+			if (separates(x, from, v))
+				result.set(v);
+		return result;
+	}
+
+	private boolean isAncestor(int t, int of) {
+		return enter[t] <= enter[of] && exit[of] <= exit[t];
+	}
+
+	private int lca(int a, int b) {
+		if (isAncestor(a, b))
+			return a;
+		if (isAncestor(b, a))
+			return b;
+		for (int j = up.length - 1; j >= 0; j--)
+			if (!isAncestor(up[j][a], b))
+				a = up[j][a];
+		return up[0][a];
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,511 @@
+package code;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compressed-sparse-row (CSR) copy of the road graph, built once when the map
+ * is loaded. Every node gets a dense int index (in order of node ID) and every
+ * segment a dense int index (in order of the segment file), and the adjacency
+ * of node i lives in the slice [offsets[i], offsets[i + 1]) of the target and
+ * segment arrays. The searches walk these arrays directly; the Node and Segment
+ * objects are only used to draw things and to print results.
+ */
+public class CompactGraph {
+	// bits of segmentFlags. the NOT_FOR_ bits are the road's access bits,
+	// shifted up past ONE_WAY.
+	public static final byte ONE_WAY = 1;
+	public static final byte NOT_FOR_CAR = Road.NOT_FOR_CAR << 1;
+	public static final byte NOT_FOR_PEDESTRIAN = Road.NOT_FOR_PEDESTRIAN << 1;
+	public static final byte NOT_FOR_BICYCLE = Road.NOT_FOR_BICYCLE << 1;
+
+	public final int nodeCount;
+	public final int segmentCount;
+
+	// per node, indexed by node index.
+	final int[] nodeIDs;
+	final double[] xs, ys;
+	final Node[] nodes;
+
+	// per segment, indexed by segment index.
+	final int[] segmentStart, segmentEnd;
+	final double[] segmentLength;
+	final byte[] segmentFlags;
+	final Segment[] segments;
+	// every flag that's set on some segment.
+	final byte flagsPresent;
+
+	// outgoing arcs, respecting one-way roads.
+	final int[] outOffsets, outTargets, outSegments;
+	// incoming arcs, the same arcs as above but filed under their head.
+	final int[] inOffsets, inSources, inSegments;
+	// undirected neighbours, one entry per neighbouring node.
+	final int[] adjOffsets, adjTargets, adjSegments;
+	// arcs both ways along every segment, for travel that ignores one-way
+	// roads. unlike the above, parallel segments are all kept.
+	final int[] bothOffsets, bothTargets, bothSegments;
+
+	// connected component of each node index, ignoring one-way roads,
+	// numbered from 0 in order of their lowest node index.
+	final int[] component;
+	public final int componentCount;
+	// strongly connected component of each node index, following one-way
+	// roads. they're numbered in reverse topological order, so if a can get
+	// to b then scc[a] >= scc[b].
+	final int[] scc;
+	public final int sccCount;
+
+	public CompactGraph(Collection<Node> nodeList, Collection<Segment> segmentList) {
+		List<Node> sorted = new ArrayList<>(nodeList);
+		Collections.sort(sorted, (a, b) -> Integer.compare(a.nodeID, b.nodeID));
+
+		nodeCount = sorted.size();
+		nodeIDs = new int[nodeCount];
+		xs = new double[nodeCount];
+		ys = new double[nodeCount];
+		nodes = new Node[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			Node node = sorted.get(i);
+			node.index = i;
+			node.compact = this;
+			nodeIDs[i] = node.nodeID;
+			xs[i] = node.location.x;
+			ys[i] = node.location.y;
+			nodes[i] = node;
+		}
+
+		segmentCount = segmentList.size();
+		segmentStart = new int[segmentCount];
+		segmentEnd = new int[segmentCount];
+		segmentLength = new double[segmentCount];
+		segmentFlags = new byte[segmentCount];
+		segments = new Segment[segmentCount];
+		int s = 0;
+		byte present = 0;
+		for (Segment segment : segmentList) {
+			segment.index = s;
+			segmentStart[s] = segment.start.index;
+			segmentEnd[s] = segment.end.index;
+			segmentLength[s] = segment.length;
+			segmentFlags[s] = accessFlags(segment.road);
+			if (segment.road.oneWay == 1)
+				segmentFlags[s] |= ONE_WAY;
+			present |= segmentFlags[s];
+			segments[s] = segment;
+			s++;
+		}
+		flagsPresent = present;
+
+		// first pass counts the degree of every node, second pass fills in the
+		// slices.
+		outOffsets = new int[nodeCount + 1];
+		inOffsets = new int[nodeCount + 1];
+		adjOffsets = new int[nodeCount + 1];
+		bothOffsets = new int[nodeCount + 1];
+		for (s = 0; s < segmentCount; s++) {
+			bothOffsets[segmentStart[s] + 1]++;
+			bothOffsets[segmentEnd[s] + 1]++;
+			outOffsets[segmentStart[s] + 1]++;
+			inOffsets[segmentEnd[s] + 1]++;
+			if ((segmentFlags[s] & ONE_WAY) == 0) {
+				outOffsets[segmentEnd[s] + 1]++;
+				inOffsets[segmentStart[s] + 1]++;
+			}
+			adjOffsets[segmentStart[s] + 1]++;
+			adjOffsets[segmentEnd[s] + 1]++;
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			outOffsets[i + 1] += outOffsets[i];
+			inOffsets[i + 1] += inOffsets[i];
+			adjOffsets[i + 1] += adjOffsets[i];
+			bothOffsets[i + 1] += bothOffsets[i];
+		}
+
+		outTargets = new int[outOffsets[nodeCount]];
+		outSegments = new int[outOffsets[nodeCount]];
+		int[] outFill = new int[nodeCount];
+		inSources = new int[inOffsets[nodeCount]];
+		inSegments = new int[inOffsets[nodeCount]];
+		int[] inFill = new int[nodeCount];
+		int[] adjTargets = new int[adjOffsets[nodeCount]];
+		int[] adjSegments = new int[adjOffsets[nodeCount]];
+		int[] adjFill = new int[nodeCount];
+		bothTargets = new int[bothOffsets[nodeCount]];
+		bothSegments = new int[bothOffsets[nodeCount]];
+		int[] bothFill = new int[nodeCount];
+		for (s = 0; s < segmentCount; s++) {
+			int a = segmentStart[s], b = segmentEnd[s];
+			int j = bothOffsets[a] + bothFill[a]++;
+			bothTargets[j] = b;
+			bothSegments[j] = s;
+			j = bothOffsets[b] + bothFill[b]++;
+			bothTargets[j] = a;
+			bothSegments[j] = s;
+			int k = outOffsets[a] + outFill[a]++;
+			outTargets[k] = b;
+			outSegments[k] = s;
+			k = inOffsets[b] + inFill[b]++;
+			inSources[k] = a;
+			inSegments[k] = s;
+			if ((segmentFlags[s] & ONE_WAY) == 0) {
+				k = outOffsets[b] + outFill[b]++;
+				outTargets[k] = a;
+				outSegments[k] = s;
+				k = inOffsets[a] + inFill[a]++;
+				inSources[k] = b;
+				inSegments[k] = s;
+			}
+			k = adjOffsets[a] + adjFill[a]++;
+			adjTargets[k] = b;
+			adjSegments[k] = s;
+			k = adjOffsets[b] + adjFill[b]++;
+			adjTargets[k] = a;
+			adjSegments[k] = s;
+		}
+
+		// parallel segments and loops don't add anything for the undirected
+		// neighbours, so squeeze them out. we keep the first segment to each
+		// neighbour.
+		int[] compactOffsets = new int[nodeCount + 1];
+		int[] seen = new int[nodeCount];
+		int w = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			int start = adjOffsets[i];
+			int end = adjOffsets[i + 1];
+			compactOffsets[i] = w;
+			for (int k = start; k < end; k++) {
+				int t = adjTargets[k];
+				if (t == i || seen[t] == i + 1)
+					continue;
+				seen[t] = i + 1;
+				adjTargets[w] = t;
+				adjSegments[w] = adjSegments[k];
+				w++;
+			}
+		}
+		compactOffsets[nodeCount] = w;
+		System.arraycopy(compactOffsets, 0, adjOffsets, 0, nodeCount + 1);
+		this.adjTargets = Arrays.copyOf(adjTargets, w);
+		this.adjSegments = Arrays.copyOf(adjSegments, w);
+
+		// label the components with one union-find pass over the segments.
+		UnionFind sets = new UnionFind(nodeCount);
+		for (s = 0; s < segmentCount; s++)
+			sets.union(segmentStart[s], segmentEnd[s]);
+		component = new int[nodeCount];
+		int[] label = new int[nodeCount];
+		Arrays.fill(label, -1);
+		int components = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			int root = sets.find(i);
+			if (label[root] == -1)
+				label[root] = components++;
+			component[i] = label[root];
+		}
+		componentCount = components;
+
+		scc = new int[nodeCount];
+		sccCount = strongComponents(scc);
+	}
+
+	/**
+	 * Puts a CompactGraph back together from arrays a MapFile kept, rather
+	 * than working them out again. nodes and segments have to be in index
+	 * order, and csr holds the offsets, targets and segments of the outgoing,
+	 * incoming, undirected and both-ways arcs, in that order.
+	 */
+	CompactGraph(Node[] nodes, Segment[] segments, int[] segmentStart, int[] segmentEnd,
+			byte[] segmentFlags, int[][] csr, int[] component, int componentCount, int[] scc,
+			int sccCount) {
+		this.nodeCount = nodes.length;
+		this.segmentCount = segments.length;
+		this.nodes = nodes;
+		this.segments = segments;
+		nodeIDs = new int[nodeCount];
+		xs = new double[nodeCount];
+		ys = new double[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			Node node = nodes[i];
+			node.index = i;
+			node.compact = this;
+			nodeIDs[i] = node.nodeID;
+			xs[i] = node.location.x;
+			ys[i] = node.location.y;
+		}
+		segmentLength = new double[segmentCount];
+		byte present = 0;
+		for (int s = 0; s < segmentCount; s++) {
+			segments[s].index = s;
+			segmentLength[s] = segments[s].length;
+			present |= segmentFlags[s];
+		}
+		this.segmentStart = segmentStart;
+		this.segmentEnd = segmentEnd;
+		this.segmentFlags = segmentFlags;
+		this.flagsPresent = present;
+		outOffsets = csr[0];
+		outTargets = csr[1];
+		outSegments = csr[2];
+		inOffsets = csr[3];
+		inSources = csr[4];
+		inSegments = csr[5];
+		adjOffsets = csr[6];
+		adjTargets = csr[7];
+		adjSegments = csr[8];
+		bothOffsets = csr[9];
+		bothTargets = csr[10];
+		bothSegments = csr[11];
+		this.component = component;
+		this.componentCount = componentCount;
+		this.scc = scc;
+		this.sccCount = sccCount;
+	}
+
+	/**
+	 * Returns the arrays the constructor above takes as csr.
+	 */
+	int[][] csr() {
+		return new int[][] { outOffsets, outTargets, outSegments, inOffsets, inSources, inSegments,
+				adjOffsets, adjTargets, adjSegments, bothOffsets, bothTargets, bothSegments };
+	}
+
+	/**
+	 * Tarjan's algorithm over the outgoing arcs, with an explicit stack.
+	 * Fills in the SCC of every node and returns how many there are.
+	 */
+	private int strongComponents(int[] scc) {
+		int n = nodeCount;
+		int[] order = new int[n];
+		int[] low = new int[n];
+		int[] cursor = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] pending = new int[n];
+		int[] calls = new int[n];
+		Arrays.fill(order, -1);
+		int counter = 0, count = 0, pendingTop = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] != -1)
+				continue;
+			int top = 0;
+			calls[top++] = root;
+			order[root] = low[root] = counter++;
+			cursor[root] = outOffsets[root];
+			pending[pendingTop++] = root;
+			onStack[root] = true;
+			while (top > 0) {
+				int v = calls[top - 1];
+				if (cursor[v] < outOffsets[v + 1]) {
+					int w = outTargets[cursor[v]++];
+					if (order[w] == -1) {
+						order[w] = low[w] = counter++;
+						cursor[w] = outOffsets[w];
+						pending[pendingTop++] = w;
+						onStack[w] = true;
+						calls[top++] = w;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], order[w]);
+					}
+					continue;
+				}
+				top--;
+				if (low[v] == order[v]) {
+					// v is the first of its component found, and everything
+					// pending above it is in the component too.
+					int w;
+					do {
+						w = pending[--pendingTop];
+						onStack[w] = false;
+						scc[w] = count;
+					} while (w != v);
+					count++;
+				}
+				if (top > 0)
+					low[calls[top - 1]] = Math.min(low[calls[top - 1]], low[v]);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a road's access bits as segment flags.
+	 */
+	static byte accessFlags(Road road) {
+		return (byte) (road.access << 1);
+	}
+
+	/**
+	 * Returns true if some segment has one of the given flags.
+	 */
+	public boolean hasAny(byte flags) {
+		return (flagsPresent & flags) != 0;
+	}
+
+	/**
+	 * Returns true if there's any way at all between two node indices,
+	 * ignoring one-way roads. If this is false there's no point searching.
+	 */
+	public boolean connected(int a, int b) {
+		return component[a] == component[b];
+	}
+
+	public int componentOf(int index) {
+		return component[index];
+	}
+
+	public int sccOf(int index) {
+		return scc[index];
+	}
+
+	/**
+	 * Returns false if there's certainly no way to drive from node index a to
+	 * node index b. True means there might be, and always is if they're in the
+	 * same strongly connected component.
+	 */
+	public boolean mayReach(int a, int b) {
+		return component[a] == component[b] && scc[a] >= scc[b];
+	}
+
+	/**
+	 * Finds the one-way traps in the map: groups of nodes that you can drive
+	 * into but never out of, or out of but never into. The biggest strongly
+	 * connected part of each component is the main road network, and so not a
+	 * trap, whatever it joins onto. Returns the node IDs in each trap.
+	 */
+	public List<int[]> oneWayTraps() {
+		int[] size = new int[sccCount];
+		boolean[] hasExit = new boolean[sccCount];
+		boolean[] hasEntry = new boolean[sccCount];
+		for (int v = 0; v < nodeCount; v++) {
+			size[scc[v]]++;
+			for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+				int w = outTargets[k];
+				if (scc[w] != scc[v]) {
+					hasExit[scc[v]] = true;
+					hasEntry[scc[w]] = true;
+				}
+			}
+		}
+		int[] biggest = new int[componentCount];
+		Arrays.fill(biggest, -1);
+		for (int v = 0; v < nodeCount; v++) {
+			int c = component[v];
+			if (biggest[c] == -1 || size[scc[v]] > size[biggest[c]])
+				biggest[c] = scc[v];
+		}
+
+		boolean[] isTrap = new boolean[sccCount];
+		int[] filled = new int[sccCount];
+		int[][] members = new int[sccCount][];
+		List<int[]> traps = new ArrayList<>();
+		for (int v = 0; v < nodeCount; v++) {
+			int c = scc[v];
+			if (members[c] == null) {
+				// (a node with no roads at all is the biggest part of its own
+				// component, so it isn't one.)
+				isTrap[c] = biggest[component[v]] != c && (!hasExit[c] || !hasEntry[c]);
+				members[c] = new int[isTrap[c] ? size[c] : 0];
+				if (isTrap[c])
+					traps.add(members[c]);
+			}
+			if (isTrap[c])
+				members[c][filled[c]++] = nodeIDs[v];
+		}
+		return traps;
+	}
+
+	/**
+	 * Returns the index of the node with the given ID, or -1 if there isn't
+	 * one.
+	 */
+	public int indexOf(int nodeID) {
+		int i = Arrays.binarySearch(nodeIDs, 0, nodeCount, nodeID);
+		return i < 0 ? -1 : i;
+	}
+
+	public Node node(int index) {
+		return nodes[index];
+	}
+
+	public Segment segment(int index) {
+		return segments[index];
+	}
+
+	/**
+	 * Returns a read-only list of the nodes referenced by one node's slice of
+	 * a CSR array, eg. nodeSlice(outOffsets, outTargets, i) for the nodes you
+	 * can drive to from node i.
+	 */
+	List<Node> nodeSlice(int[] offsets, int[] targets, int index) {
+		final int start = offsets[index], end = offsets[index + 1];
+		return new AbstractList<Node>() {
+			public Node get(int i) {
+				return nodes[targets[start + i]];
+			}
+
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+
+	/**
+	 * As nodeSlice, but for the segment half of the slice.
+	 */
+	List<Segment> segmentSlice(int[] offsets, int[] segs, int index) {
+		final int start = offsets[index], end = offsets[index + 1];
+		return new AbstractList<Segment>() {
+			public Segment get(int i) {
+				return segments[segs[start + i]];
+			}
+
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+
+	/**
+	 * Returns a hash of the graph's shape together with a set of segment
+	 * weights, so that anything precomputed from them (landmarks, contraction
+	 * hierarchies) can tell whether it's still for the same thing.
+	 */
+	public long signature(double[] weights) {
+		long h = nodeCount * 31L + segmentCount;
+		for (int s = 0; s < weights.length; s++) {
+			h = h * 31 + Double.hashCode(weights[s]);
+			h = h * 31 + segmentStart[s];
+			h = h * 31 + segmentEnd[s];
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the arc ID for travelling along a segment away from one of its
+	 * ends. Arc 2s runs from segment s's start to its end, and arc 2s + 1
+	 * back again, so arc IDs run from 0 to 2 * segmentCount - 1.
+	 */
+	public int arcFrom(int segment, int tail) {
+		return 2 * segment + (segmentStart[segment] == tail ? 0 : 1);
+	}
+
+	/**
+	 * Returns the node index an arc leads to.
+	 */
+	public int arcHead(int arc) {
+		return (arc & 1) == 0 ? segmentEnd[arc >> 1] : segmentStart[arc >> 1];
+	}
+
+	/**
+	 * Given a segment and one of its end nodes, returns the node at the other
+	 * end.
+	 */
+	public int otherEnd(int segment, int node) {
+		return segmentStart[segment] == node ? segmentEnd[segment] : segmentStart[segment];
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,682 @@
+package code;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A contraction hierarchy over the road graph for one set of edge weights.
+ *
+ * Building it takes the nodes out of the graph, least important first.
+ * Taking out node v would break any shortest path u -> v -> w, so for every
+ * such pair a shortcut edge u -> w is added, unless a "witness" search
+ * finds a path from u to w that doesn't need v and is no longer. Each node's
+ * rank is when it was taken out. Importance is the edge difference: the
+ * shortcuts taking a node out would add, less the edges it would remove, plus
+ * how many of its neighbours are already gone (which spreads the contraction
+ * evenly over the map).
+ *
+ * Every shortest path then goes up in rank and then down again, so a query is
+ * a bidirectional Dijkstra that only ever follows edges to higher ranked nodes
+ * (forwards from the start, and backwards from the goal). Each shortcut
+ * remembers the two edges it replaces, so the path can be unpacked back into
+ * the original segments.
+ */
+public class ContractionHierarchy {
+	// a witness search gives up after settling this many nodes, and assumes
+	// there's no witness; that only costs an unneeded shortcut.
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private static final int MAGIC = 0x43484831; // "CHH1"
+	private static final int VERSION = 1;
+
+	private final int nodeCount;
+	private final int[] rank;
+	private final long signature;
+	private final Profile profile;
+
+	// every edge, originals first then shortcuts. an original edge has the
+	// segment it runs along; a shortcut has the two edges it stands for.
+	private final int[] edgeFrom, edgeTo, edgeSegment, edgeFirst, edgeSecond;
+	private final double[] edgeWeight;
+	private final int shortcutCount;
+
+	// edges leading up in rank, filed under their lower end: upOut holds
+	// edges out of a node, upIn edges into it.
+	private final int[] upOutOffsets, upOutTargets, upOutEdges;
+	private final int[] upInOffsets, upInSources, upInEdges;
+
+	/**
+	 * Builds the hierarchy for cars with the given weights, indexed by
+	 * segment, using the common ForkJoinPool. Segments with infinite weight
+	 * are left out.
+	 */
+	public ContractionHierarchy(CompactGraph compact, double[] weights) {
+		this(compact, weights, Profile.CAR, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * As above, but for any profile, and contracting in the given pool. The
+	 * hierarchy comes out the same whatever the pool's parallelism. Segments
+	 * the profile isn't allowed on are left out too.
+	 */
+	public ContractionHierarchy(CompactGraph compact, double[] weights, Profile profile,
+			ForkJoinPool pool) {
+		this(compact.nodeCount, compact.signature(weights), profile,
+				new Builder(compact, weights, profile, pool).contractAll());
+	}
+
+	private ContractionHierarchy(int nodeCount, long signature, Profile profile, Builder builder) {
+		this(nodeCount, signature, profile, builder.rank, Arrays.copyOf(builder.from, builder.edges),
+				Arrays.copyOf(builder.to, builder.edges),
+				Arrays.copyOf(builder.segment, builder.edges),
+				Arrays.copyOf(builder.first, builder.edges),
+				Arrays.copyOf(builder.second, builder.edges),
+				Arrays.copyOf(builder.weight, builder.edges), builder.edges - builder.originalEdges);
+	}
+
+	/**
+	 * Puts a hierarchy together from its ranks and edges, and files the edges
+	 * that lead up in rank under their lower ends for querying.
+	 */
+	private ContractionHierarchy(int nodeCount, long signature, Profile profile, int[] rank,
+			int[] edgeFrom, int[] edgeTo, int[] edgeSegment, int[] edgeFirst, int[] edgeSecond,
+			double[] edgeWeight, int shortcutCount) {
+		this.nodeCount = nodeCount;
+		this.signature = signature;
+		this.profile = profile;
+		this.rank = rank;
+		this.edgeFrom = edgeFrom;
+		this.edgeTo = edgeTo;
+		this.edgeSegment = edgeSegment;
+		this.edgeFirst = edgeFirst;
+		this.edgeSecond = edgeSecond;
+		this.edgeWeight = edgeWeight;
+		this.shortcutCount = shortcutCount;
+		int m = edgeFrom.length;
+
+		upOutOffsets = new int[nodeCount + 1];
+		upInOffsets = new int[nodeCount + 1];
+		for (int e = 0; e < m; e++) {
+			if (rank[edgeFrom[e]] < rank[edgeTo[e]])
+				upOutOffsets[edgeFrom[e] + 1]++;
+			else
+				upInOffsets[edgeTo[e] + 1]++;
+		}
+		for (int v = 0; v < nodeCount; v++) {
+			upOutOffsets[v + 1] += upOutOffsets[v];
+			upInOffsets[v + 1] += upInOffsets[v];
+		}
+		upOutTargets = new int[upOutOffsets[nodeCount]];
+		upOutEdges = new int[upOutOffsets[nodeCount]];
+		upInSources = new int[upInOffsets[nodeCount]];
+		upInEdges = new int[upInOffsets[nodeCount]];
+		int[] outFill = new int[nodeCount];
+		int[] inFill = new int[nodeCount];
+		for (int e = 0; e < m; e++) {
+			int a = edgeFrom[e], b = edgeTo[e];
+			if (rank[a] < rank[b]) {
+				int k = upOutOffsets[a] + outFill[a]++;
+				upOutTargets[k] = b;
+				upOutEdges[k] = e;
+			} else {
+				int k = upInOffsets[b] + inFill[b]++;
+				upInSources[k] = a;
+				upInEdges[k] = e;
+			}
+		}
+	}
+
+	/**
+	 * Writes the hierarchy to a file, so it doesn't have to be built again
+	 * next time the map is loaded.
+	 */
+	public void save(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodeCount);
+			out.writeLong(signature);
+			out.writeInt(profile.ordinal());
+			out.writeInt(edgeFrom.length);
+			out.writeInt(shortcutCount);
+			for (int r : rank)
+				out.writeInt(r);
+			for (int e = 0; e < edgeFrom.length; e++) {
+				out.writeInt(edgeFrom[e]);
+				out.writeInt(edgeTo[e]);
+				out.writeInt(edgeSegment[e]);
+				out.writeInt(edgeFirst[e]);
+				out.writeInt(edgeSecond[e]);
+				out.writeDouble(edgeWeight[e]);
+			}
+		}
+	}
+
+	/**
+	 * Reads a hierarchy written by save. Returns null if the file is for a
+	 * different map, weights or profile, or is from an older version.
+	 */
+	public static ContractionHierarchy load(File file, CompactGraph compact, double[] weights,
+			Profile profile) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			int n = in.readInt();
+			long signature = in.readLong();
+			if (n != compact.nodeCount || signature != compact.signature(weights)
+					|| in.readInt() != profile.ordinal())
+				return null;
+			int m = in.readInt();
+			int shortcuts = in.readInt();
+			if (m < 0 || shortcuts < 0 || shortcuts > m)
+				throw new IOException("bad edge count " + m);
+			int[] rank = new int[n];
+			for (int v = 0; v < n; v++)
+				rank[v] = in.readInt();
+			int[] from = new int[m], to = new int[m], segment = new int[m];
+			int[] first = new int[m], second = new int[m];
+			double[] weight = new double[m];
+			for (int e = 0; e < m; e++) {
+				from[e] = in.readInt();
+				to[e] = in.readInt();
+				segment[e] = in.readInt();
+				first[e] = in.readInt();
+				second[e] = in.readInt();
+				weight[e] = in.readDouble();
+			}
+			return new ContractionHierarchy(n, signature, profile, rank, from, to, segment, first,
+					second, weight, shortcuts);
+		} catch (EOFException e) {
+			throw new IOException("ends too soon", e);
+		}
+	}
+
+	/**
+	 * Loads a car hierarchy from a file if it holds one for this map and
+	 * weights, and otherwise builds it and writes it to the file. Failing to
+	 * write the file isn't fatal.
+	 */
+	public static ContractionHierarchy loadOrCompute(File file, CompactGraph compact,
+			double[] weights) {
+		if (file.exists()) {
+			try {
+				ContractionHierarchy ch = load(file, compact, weights, Profile.CAR);
+				if (ch != null)
+					return ch;
+			} catch (IOException e) {
+				System.err.println("couldn't read " + file + ", rebuilding: " + e.getMessage());
+			}
+		}
+		ContractionHierarchy ch = new ContractionHierarchy(compact, weights);
+		try {
+			ch.save(file);
+		} catch (IOException e) {
+			System.err.println("couldn't write " + file + ": " + e.getMessage());
+		}
+		return ch;
+	}
+
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	public Profile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Returns true if this hierarchy was built for this graph and these
+	 * weights.
+	 */
+	public boolean matches(CompactGraph compact, double[] weights) {
+		return nodeCount == compact.nodeCount && signature == compact.signature(weights);
+	}
+
+	/**
+	 * Finds the best route between two node indices. The two contexts hold the
+	 * forward and backward searches; their parent segments are used for edge
+	 * IDs here. w is only used to cost up the Route's legs.
+	 */
+	Route query(CompactGraph compact, int start, int goal, SearchContext forward,
+			SearchContext backward, double[] w) {
+		forward.reset();
+		backward.reset();
+		forward.reach(start, 0, -1, -1);
+		forward.heap.insertOrDecrease(start, 0);
+		backward.reach(goal, 0, -1, -1);
+		backward.heap.insertOrDecrease(goal, 0);
+
+		double best = Double.POSITIVE_INFINITY;
+		int meet = -1;
+		int settled = 0;
+		while (true) {
+			boolean forwardLive = !forward.heap.isEmpty() && forward.heap.peekKey() < best;
+			boolean backwardLive = !backward.heap.isEmpty() && backward.heap.peekKey() < best;
+			if (!forwardLive && !backwardLive)
+				break;
+			boolean isForward = forwardLive
+					&& (!backwardLive || forward.heap.peekKey() <= backward.heap.peekKey());
+			SearchContext side = isForward ? forward : backward;
+			SearchContext other = isForward ? backward : forward;
+			int[] offsets = isForward ? upOutOffsets : upInOffsets;
+			int[] targets = isForward ? upOutTargets : upInSources;
+			int[] edges = isForward ? upOutEdges : upInEdges;
+
+			int v = side.heap.poll();
+			side.close(v);
+			settled++;
+			double gv = side.g[v];
+			if (other.isReached(v) && gv + other.g[v] < best) {
+				best = gv + other.g[v];
+				meet = v;
+			}
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				int edge = edges[k];
+				double g = gv + edgeWeight[edge];
+				if (g < side.gScore(neighbour)) {
+					side.reach(neighbour, g, v, edge);
+					side.heap.insertOrDecrease(neighbour, g);
+				}
+			}
+		}
+		if (meet == -1)
+			return Route.none(settled);
+
+		// collect the edges along the path, in order, then unpack them.
+		List<Integer> path = new ArrayList<>();
+		for (int v = meet; forward.parentOf(v) != -1; v = forward.parentOf(v))
+			path.add(0, forward.parentSegmentOf(v));
+		for (int v = meet; backward.parentOf(v) != -1; v = backward.parentOf(v))
+			path.add(backward.parentSegmentOf(v));
+
+		List<Segment> segments = new ArrayList<>();
+		List<Integer> nodes = new ArrayList<>();
+		nodes.add(compact.nodeIDs[start]);
+		int[] stack = new int[64];
+		for (int edge : path) {
+			int top = 0;
+			stack[top++] = edge;
+			while (top > 0) {
+				int e = stack[--top];
+				if (edgeSegment[e] != -1) {
+					segments.add(compact.segments[edgeSegment[e]]);
+					nodes.add(compact.nodeIDs[edgeTo[e]]);
+				} else {
+					if (top + 2 > stack.length)
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					stack[top++] = edgeSecond[e];
+					stack[top++] = edgeFirst[e];
+				}
+			}
+		}
+		int[] nodeIDs = new int[nodes.size()];
+		for (int i = 0; i < nodeIDs.length; i++)
+			nodeIDs[i] = nodes.get(i);
+		return new Route(nodeIDs, segments, w, settled);
+	}
+
+	/**
+	 * The mutable state used while contracting: a growable edge list, and for
+	 * each node the IDs of the edges in and out of it. Edges to nodes that have
+	 * already been contracted are left in the lists and skipped over.
+	 *
+	 * Nodes are contracted in rounds. Each round picks every node that is
+	 * less important than all its remaining neighbours; no two of those are
+	 * neighbours, so their shortcuts can all be worked out at once, in
+	 * parallel, against the graph as it was at the start of the round. Then
+	 * the shortcuts are added and ranks handed out in node index order, and
+	 * the importance of the nodes next to them is recomputed (again in
+	 * parallel). Nothing depends on which thread did what or in what order,
+	 * so the result is the same however many threads there are.
+	 */
+	private static class Builder {
+		final int n;
+		final ForkJoinPool pool;
+		int[] from, to, segment, first, second;
+		double[] weight;
+		int edges = 0;
+		int originalEdges;
+
+		final IntList[] out, in;
+		final boolean[] contracted;
+		// nodes being contracted this round, which witnesses mustn't use.
+		final boolean[] inBatch;
+		final int[] deletedNeighbours;
+		final int[] priority;
+		final int[] rank;
+		final ThreadLocal<WitnessSearch> witnesses;
+
+		Builder(CompactGraph compact, double[] weights, Profile profile, ForkJoinPool pool) {
+			n = compact.nodeCount;
+			this.pool = pool;
+			int[] offsets = profile.followsOneWay ? compact.outOffsets : compact.bothOffsets;
+			int[] targets = profile.followsOneWay ? compact.outTargets : compact.bothTargets;
+			int[] segs = profile.followsOneWay ? compact.outSegments : compact.bothSegments;
+			int capacity = Math.max(16, offsets[n] * 2);
+			from = new int[capacity];
+			to = new int[capacity];
+			segment = new int[capacity];
+			first = new int[capacity];
+			second = new int[capacity];
+			weight = new double[capacity];
+			out = new IntList[n];
+			in = new IntList[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new IntList();
+				in[v] = new IntList();
+			}
+			contracted = new boolean[n];
+			inBatch = new boolean[n];
+			deletedNeighbours = new int[n];
+			priority = new int[n];
+			rank = new int[n];
+			witnesses = ThreadLocal.withInitial(() -> new WitnessSearch(n));
+
+			// one edge per arc, keeping only the cheapest of parallel arcs.
+			int[] cheapest = new int[n];
+			Arrays.fill(cheapest, -1);
+			for (int v = 0; v < n; v++) {
+				for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+					int w = targets[k];
+					int s = segs[k];
+					if (w == v || weights[s] == Double.POSITIVE_INFINITY
+							|| (compact.segmentFlags[s] & profile.forbidden) != 0)
+						continue;
+					int e = cheapest[w];
+					if (e != -1 && from[e] == v) {
+						if (weights[s] < weight[e]) {
+							weight[e] = weights[s];
+							segment[e] = s;
+						}
+						continue;
+					}
+					cheapest[w] = addEdge(v, w, weights[s], s, -1, -1);
+				}
+			}
+			originalEdges = edges;
+		}
+
+		int addEdge(int a, int b, double w, int s, int e1, int e2) {
+			if (edges == from.length) {
+				int capacity = edges * 2;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				segment = Arrays.copyOf(segment, capacity);
+				first = Arrays.copyOf(first, capacity);
+				second = Arrays.copyOf(second, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+			}
+			int e = edges++;
+			from[e] = a;
+			to[e] = b;
+			weight[e] = w;
+			segment[e] = s;
+			first[e] = e1;
+			second[e] = e2;
+			out[a].add(e);
+			in[b].add(e);
+			return e;
+		}
+
+		Builder contractAll() {
+			int[] remaining = new int[n];
+			for (int v = 0; v < n; v++)
+				remaining[v] = v;
+			int left = n;
+			updatePriorities(remaining, left);
+			int next = 0;
+			while (left > 0) {
+				int[] batch = independentSet(remaining, left);
+				for (int v : batch)
+					inBatch[v] = true;
+				Shortcuts[] found = new Shortcuts[batch.length];
+				pool.submit(() -> IntStream.range(0, batch.length).parallel()
+						.forEach(i -> found[i] = shortcuts(batch[i], true))).join();
+
+				// apply the round in node index order.
+				boolean[] touched = new boolean[n];
+				for (int i = 0; i < batch.length; i++) {
+					int v = batch[i];
+					Shortcuts sc = found[i];
+					for (int j = 0; j < sc.size; j++)
+						addEdge(sc.from[j], sc.to[j], sc.weight[j], -1, sc.first[j], sc.second[j]);
+					contracted[v] = true;
+					inBatch[v] = false;
+					rank[v] = next++;
+					for (int k = 0; k < out[v].size; k++)
+						touch(to[out[v].get(k)], touched);
+					for (int k = 0; k < in[v].size; k++)
+						touch(from[in[v].get(k)], touched);
+				}
+
+				int kept = 0;
+				for (int i = 0; i < left; i++)
+					if (!contracted[remaining[i]])
+						remaining[kept++] = remaining[i];
+				left = kept;
+				int[] changed = new int[left];
+				int c = 0;
+				for (int i = 0; i < left; i++)
+					if (touched[remaining[i]])
+						changed[c++] = remaining[i];
+				updatePriorities(changed, c);
+			}
+			return this;
+		}
+
+		private void touch(int v, boolean[] touched) {
+			if (!contracted[v]) {
+				deletedNeighbours[v]++;
+				touched[v] = true;
+			}
+		}
+
+		private void updatePriorities(int[] nodes, int count) {
+			pool.submit(() -> IntStream.range(0, count).parallel()
+					.forEach(i -> priority[nodes[i]] = computePriority(nodes[i]))).join();
+		}
+
+		/**
+		 * Returns the nodes (in index order) that are less important than
+		 * all of their uncontracted neighbours, ties going to the lower index.
+		 */
+		private int[] independentSet(int[] remaining, int left) {
+			IntList chosen = new IntList();
+			for (int i = 0; i < left; i++) {
+				int v = remaining[i];
+				if (isLocalMinimum(v))
+					chosen.add(v);
+			}
+			return Arrays.copyOf(chosen.items, chosen.size);
+		}
+
+		private boolean isLocalMinimum(int v) {
+			for (int k = 0; k < out[v].size; k++)
+				if (beats(to[out[v].get(k)], v))
+					return false;
+			for (int k = 0; k < in[v].size; k++)
+				if (beats(from[in[v].get(k)], v))
+					return false;
+			return true;
+		}
+
+		// true if w is still in the graph and should go before v.
+		private boolean beats(int w, int v) {
+			if (contracted[w] || w == v)
+				return false;
+			return priority[w] < priority[v] || (priority[w] == priority[v] && w < v);
+		}
+
+		int computePriority(int v) {
+			int removed = 0;
+			for (int i = 0; i < out[v].size; i++)
+				if (!contracted[to[out[v].get(i)]])
+					removed++;
+			for (int i = 0; i < in[v].size; i++)
+				if (!contracted[from[in[v].get(i)]])
+					removed++;
+			return shortcuts(v, false).size - removed + deletedNeighbours[v];
+		}
+
+		/**
+		 * Works out which shortcuts contracting v needs. This only reads the
+		 * graph, so it's safe to run for many nodes at once; if keep is false
+		 * only the count is worth anything.
+		 */
+		Shortcuts shortcuts(int v, boolean keep) {
+			WitnessSearch witness = witnesses.get();
+			Shortcuts found = new Shortcuts(keep);
+			IntList ins = in[v], outs = out[v];
+			for (int i = 0; i < ins.size; i++) {
+				int e1 = ins.get(i);
+				int u = from[e1];
+				if (contracted[u])
+					continue;
+				double limit = -1;
+				for (int j = 0; j < outs.size; j++) {
+					int e2 = outs.get(j);
+					int w = to[e2];
+					if (!contracted[w] && w != u)
+						limit = Math.max(limit, weight[e1] + weight[e2]);
+				}
+				if (limit < 0)
+					continue;
+				witness.run(this, u, v, limit);
+				for (int j = 0; j < outs.size; j++) {
+					int e2 = outs.get(j);
+					int w = to[e2];
+					if (contracted[w] || w == u)
+						continue;
+					double via = weight[e1] + weight[e2];
+					if (witness.distance(w) <= via)
+						continue;
+					// a later parallel edge into w can't beat this one.
+					witness.improve(w, via);
+					found.add(u, w, via, e1, e2);
+				}
+			}
+			return found;
+		}
+	}
+
+	/**
+	 * The shortcuts found for one node.
+	 */
+	static class Shortcuts {
+		final boolean keep;
+		int size = 0;
+		int[] from, to, first, second;
+		double[] weight;
+
+		Shortcuts(boolean keep) {
+			this.keep = keep;
+			if (keep) {
+				from = new int[4];
+				to = new int[4];
+				first = new int[4];
+				second = new int[4];
+				weight = new double[4];
+			}
+		}
+
+		void add(int a, int b, double w, int e1, int e2) {
+			if (keep) {
+				if (size == from.length) {
+					from = Arrays.copyOf(from, size * 2);
+					to = Arrays.copyOf(to, size * 2);
+					first = Arrays.copyOf(first, size * 2);
+					second = Arrays.copyOf(second, size * 2);
+					weight = Arrays.copyOf(weight, size * 2);
+				}
+				from[size] = a;
+				to[size] = b;
+				first[size] = e1;
+				second[size] = e2;
+				weight[size] = w;
+			}
+			size++;
+		}
+	}
+
+	/**
+	 * A bounded Dijkstra search through the uncontracted nodes, looking for
+	 * paths that avoid the nodes being contracted. Each thread has its own.
+	 */
+	static class WitnessSearch {
+		private final SearchContext search;
+
+		WitnessSearch(int n) {
+			search = new SearchContext(n);
+		}
+
+		void run(Builder b, int source, int avoid, double limit) {
+			search.reset();
+			search.reach(source, 0, -1, -1);
+			search.heap.insertOrDecrease(source, 0);
+			int settled = 0;
+			while (!search.heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+				if (search.heap.peekKey() > limit)
+					break;
+				int v = search.heap.poll();
+				settled++;
+				double gv = search.g[v];
+				IntList outs = b.out[v];
+				for (int i = 0; i < outs.size; i++) {
+					int e = outs.get(i);
+					int w = b.to[e];
+					if (w == avoid || b.contracted[w] || b.inBatch[w])
+						continue;
+					double g = gv + b.weight[e];
+					if (g < search.gScore(w)) {
+						search.reach(w, g, v, e);
+						search.heap.insertOrDecrease(w, g);
+					}
+				}
+			}
+		}
+
+		double distance(int node) {
+			return search.gScore(node);
+		}
+
+		void improve(int node, double g) {
+			if (g < search.gScore(node))
+				search.reach(node, g, -1, -1);
+		}
+	}
+
+	/**
+	 * A growable list of ints, to save boxing every edge ID.
+	 */
+	static class IntList {
+		int[] items = new int[4];
+		int size = 0;
+
+		void add(int x) {
+			if (size == items.length)
+				items = Arrays.copyOf(items, size * 2);
+			items[size++] = x;
+		}
+
+		int get(int i) {
+			return items[i];
+		}
+	}
+}
+
+// code for COMP261 assignments
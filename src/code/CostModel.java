@@ -0,0 +1,31 @@
+package code;
+
+/**
+ * A CostModel says what a route is trying to minimise: it gives the cost of
+ * travelling along a segment, and an estimate of the cost between two
+ * locations for A* to use as its heuristic. The estimate must never be more
+ * than the real cost, or A* can return a route that isn't the best one.
+ *
+ * A segment that can't be used at all should cost Double.POSITIVE_INFINITY.
+ * See DistanceCost, TimeCost and RestrictedCost.
+ */
+public interface CostModel {
+
+	/**
+	 * Returns the cost of travelling the length of the given segment.
+	 */
+	double edgeCost(Segment segment);
+
+	/**
+	 * Returns a lower bound on the cost of getting from one location to
+	 * another.
+	 */
+	double heuristic(Location from, Location to);
+
+	/**
+	 * Shortest route by distance.
+	 */
+	CostModel DISTANCE = new DistanceCost();
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,18 @@
+package code;
+
+/**
+ * Shortest route by distance. Straight line distance is never more than the
+ * length of the road between two places, so it's an admissible heuristic.
+ */
+public class DistanceCost implements CostModel {
+
+	public double edgeCost(Segment segment) {
+		return segment.length;
+	}
+
+	public double heuristic(Location from, Location to) {
+		return from.distance(to);
+	}
+}
+
+// code for COMP261 assignments
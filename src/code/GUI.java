@@ -87,6 +87,8 @@ public abstract class GUI {
 	protected abstract void onDistance();
 	
 	protected abstract void onTime();
+
+	protected abstract void onIsochrone();
 	/**
 	 * Is called when the user has successfully selected a directory to load the
 	 * data files from. File objects representing the four files of interested
@@ -155,6 +157,9 @@ public abstract class GUI {
 	public static final String ROADS_FILENAME = "roadID-roadInfo.tab";
 	public static final String SEGS_FILENAME = "roadSeg-roadID-length-nodeID-nodeID-coords.tab";
 	public static final String POLYS_FILENAME = "polygon-shapes.mp";
+	// optional, and not passed to onLoad; look for them next to the others.
+	public static final String RESTRICTIONS_FILENAME = "restrictions.tab";
+	public static final String TURN_COSTS_FILENAME = "turn-costs.tab";
 
 	/*
 	 * In Swing, everything is a component; buttons, graphics panes, tool tips,
@@ -316,7 +321,7 @@ public abstract class GUI {
 		});
 			
 		JButton Distance = new JButton("Distance");
-		aStarComp.addActionListener(new ActionListener() {
+		Distance.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ev) {
 				onDistance();
 				redraw();
@@ -324,12 +329,20 @@ public abstract class GUI {
 		});
 		
 		JButton Time = new JButton("Time");
-		aStarComp.addActionListener(new ActionListener() {
+		Time.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ev) {
 				onTime();
 				redraw();
 			}
 		});
+
+		JButton isochrone = new JButton("Reach");
+		isochrone.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent ev) {
+				onIsochrone();
+				redraw();
+			}
+		});
 		// next, make the search box at the top-right. we manually fix
 		// it's size, and add an action listener to call your code when
 		// the user presses enter.
@@ -401,6 +414,7 @@ public abstract class GUI {
 		navigation.add(east);
 		navigation.add(aps);
 		navigation.add(Distance);
+		navigation.add(isochrone);
 		controls.add(navigation);
 		controls.add(Box.createRigidArea(new Dimension(15, 0)));
 		// glue is another invisible component that grows to take up all the
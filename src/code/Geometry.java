@@ -0,0 +1,77 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * The shapes of many segments kept together in two int arrays, rather than as
+ * a Location object per point. Coordinates are stored in fixed point, as
+ * whole numbers of UNIT, which is a centimetre when Locations are in
+ * kilometres: far finer than the map files give them, and 8 bytes a point
+ * instead of about 40.
+ *
+ * A segment's points are a run of consecutive entries, so segments read
+ * together share one Geometry. Points are only added while the segments are
+ * being read, by the thread reading them.
+ */
+class Geometry {
+	// the size of one step of the fixed point coordinates, in Location units.
+	static final double UNIT = 1e-5;
+
+	int[] xs, ys;
+	int size = 0;
+
+	Geometry(int capacity) {
+		xs = new int[Math.max(capacity, 1)];
+		ys = new int[xs.length];
+	}
+
+	Geometry(int[] xs, int[] ys) {
+		this.xs = xs;
+		this.ys = ys;
+		this.size = xs.length;
+	}
+
+	/**
+	 * Adds a point, returning its index.
+	 */
+	int add(Location location) {
+		if (size == xs.length) {
+			xs = Arrays.copyOf(xs, size * 2);
+			ys = Arrays.copyOf(ys, size * 2);
+		}
+		xs[size] = quantize(location.x);
+		ys[size] = quantize(location.y);
+		return size++;
+	}
+
+	/**
+	 * Lets go of the room left for points that were never added.
+	 */
+	void trim() {
+		if (size < xs.length) {
+			xs = Arrays.copyOf(xs, size);
+			ys = Arrays.copyOf(ys, size);
+		}
+	}
+
+	double x(int i) {
+		return xs[i] * UNIT;
+	}
+
+	double y(int i) {
+		return ys[i] * UNIT;
+	}
+
+	Location location(int i) {
+		return new Location(x(i), y(i));
+	}
+
+	private static int quantize(double value) {
+		double steps = Math.rint(value / UNIT);
+		if (!(steps >= Integer.MIN_VALUE && steps <= Integer.MAX_VALUE))
+			throw new IllegalArgumentException("coordinate " + value + " is too far out to store");
+		return (int) steps;
+	}
+}
+
+// code for COMP261 assignments
@@ -10,7 +10,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * This represents the data structure storing all the roads, nodes, and
@@ -26,6 +29,8 @@ public class Graph {
 	Map<Integer, Road> roads;
 	// just some collection of Segments.
 	Collection<Segment> segments;
+	// the same nodes and segments packed into flat arrays for searching.
+	CompactGraph compact;
 
 	Node highlightedNode;
 	Node fromNode;
@@ -34,11 +39,49 @@ public class Graph {
 	ArrayList<Segment> highlightedSegments = new ArrayList<>();
 	ArrayList<Node> highlightedNodes = new ArrayList<>();
 	ArrayList<Node> highlightedAPs = new ArrayList<>();
+	// the segments of each alternative to the highlighted route.
+	ArrayList<List<Segment>> alternativeSegments = new ArrayList<>();
+	private static final Color[] ALTERNATIVE_COLOURS = { new Color(60, 180, 200),
+			new Color(170, 90, 200), new Color(120, 190, 80) };
+	// drawn if it's set.
+	Isochrone isochrone;
+	// lakes, parks and so on; null until they've been read, which happens in
+	// the background.
+	volatile Polygons polygons;
+	// if set, segments are coloured by the block they're in.
+	ArticulationPoints blocks;
+	private static final Color[] BLOCK_COLOURS = { new Color(31, 119, 180),
+			new Color(255, 127, 14), new Color(44, 160, 44), new Color(214, 39, 40),
+			new Color(148, 103, 189), new Color(140, 86, 75), new Color(227, 119, 194),
+			new Color(188, 189, 34), new Color(23, 190, 207) };
 
 	public Graph(File nodes, File roads, File segments, File polygons) {
-		this.nodes = Parser.parseNodes(nodes, this);
+		// the nodes and roads don't need each other, so read them at the same
+		// time; the segments need both.
+		CompletableFuture<Map<Integer, Node>> nodesRead =
+				CompletableFuture.supplyAsync(() -> Parser.parseNodes(nodes, this));
 		this.roads = Parser.parseRoads(roads, this);
+		try {
+			this.nodes = nodesRead.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
 		this.segments = Parser.parseSegments(segments, this);
+		this.compact = new CompactGraph(this.nodes.values(), this.segments);
+	}
+
+	/**
+	 * Makes a graph out of what's already been read, eg. from a MapFile. The
+	 * segments have to be wired into their roads already.
+	 */
+	Graph(Map<Integer, Node> nodes, Map<Integer, Road> roads, Collection<Segment> segments,
+			CompactGraph compact) {
+		this.nodes = nodes;
+		this.roads = roads;
+		this.segments = segments;
+		this.compact = compact;
 	}
 
 	public void draw(Graphics g, Dimension screen, Location origin, double scale) {
@@ -48,11 +91,31 @@ public class Graph {
 		// just do this.
 		Graphics2D g2 = (Graphics2D) g;
 
+		// draw the polygons underneath everything else.
+		Polygons shapes = polygons;
+		if (shapes != null)
+			shapes.draw(g2, screen, origin, scale);
+
 		// draw all the segments.
 		g2.setColor(Mapper.SEGMENT_COLOUR);
-		for (Segment s : segments)
+		for (Segment s : segments) {
+			if (blocks != null) {
+				int block = blocks.blockOf(s.index);
+				g2.setColor(block == -1 ? Mapper.SEGMENT_COLOUR
+						: BLOCK_COLOURS[block % BLOCK_COLOURS.length]);
+			}
 			s.draw(g2, origin, scale);
+		}
 		
+		// draw the alternatives underneath the route itself, where they
+		// share segments with it.
+		g2.setStroke(new BasicStroke(3));
+		for (int i = alternativeSegments.size() - 1; i >= 0; i--) {
+			g2.setColor(ALTERNATIVE_COLOURS[i % ALTERNATIVE_COLOURS.length]);
+			for (Segment segment : alternativeSegments.get(i))
+				segment.draw(g2, origin, scale);
+		}
+
 		g2.setColor(Mapper.HIGHLIGHT_COLOUR);
 		g2.setStroke(new BasicStroke(3));
 		for (Segment segment : highlightedSegments) {
@@ -70,6 +133,14 @@ public class Graph {
 			}
 		}
 
+		// draw the isochrone boundary.
+		if (isochrone != null) {
+			g2.setColor(Mapper.ISOCHRONE_COLOUR);
+			g2.setStroke(new BasicStroke(3));
+			isochrone.draw(g2, origin, scale, 6);
+		}
+		g2.setStroke(new BasicStroke(1));
+
 		// draw all the nodes.
 
 		g2.setColor(Mapper.NODE_COLOUR);
@@ -121,6 +192,47 @@ public class Graph {
 		this.highlightedSegments.add(segment);
 	}
 	
+	public void setAlternatives(List<Route> alternatives) {
+		this.alternativeSegments.clear();
+		for (Route route : alternatives)
+			this.alternativeSegments.add(route.segments);
+	}
+
+	/**
+	 * Reads the polygons file on a thread of its own, so the roads can be
+	 * used straight away, and calls whenDone once they're ready to draw.
+	 */
+	public void loadPolygons(File file, Runnable whenDone) {
+		Thread loader = new Thread(() -> {
+			try {
+				polygons = Parser.parsePolygons(file);
+				whenDone.run();
+			} catch (RuntimeException e) {
+				System.err.println("couldn't read " + file + ": " + e.getMessage());
+			}
+		}, "polygon loader");
+		loader.setDaemon(true);
+		loader.setPriority(Thread.MIN_PRIORITY);
+		loader.start();
+	}
+
+	public void setIsochrone(Isochrone isochrone) {
+		this.isochrone = isochrone;
+	}
+
+	public void setBlocks(ArticulationPoints blocks) {
+		this.blocks = blocks;
+	}
+
+	/**
+	 * Stops colouring by block and highlighting articulation points, eg. once
+	 * some other query's results are on show.
+	 */
+	public void clearBlocks() {
+		this.blocks = null;
+		this.highlightedAPs.clear();
+	}
+
 	public void setHighlightAP(Node node) {
 		this.highlightedAPs.add(node);
 	}
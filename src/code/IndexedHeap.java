@@ -0,0 +1,131 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node indices, ordered by a double key, that also knows
+ * where each node sits in the heap. That lets a node's key be lowered in place
+ * (decrease-key) instead of pushing a second copy of it, so the heap never
+ * holds more than one entry per node and never allocates once it's made.
+ */
+public class IndexedHeap {
+	private final int[] heap;
+	private final double[] keys;
+	// where each node is in the heap, or -1 if it isn't in it.
+	private final int[] position;
+	private int size = 0;
+
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int node) {
+		return position[node] != -1;
+	}
+
+	/**
+	 * Empties the heap. This only touches the entries still in it.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			position[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Adds a node with the given key, or if it's already in the heap, lowers
+	 * its key. Returns false (and does nothing) if the node is already in the
+	 * heap with a key no bigger than this one.
+	 */
+	public boolean insertOrDecrease(int node, double key) {
+		int i = position[node];
+		if (i == -1) {
+			i = size++;
+			heap[i] = node;
+			position[node] = i;
+		} else if (keys[node] <= key) {
+			return false;
+		}
+		keys[node] = key;
+		siftUp(i);
+		return true;
+	}
+
+	/**
+	 * Returns the key of the node at the top of the heap.
+	 */
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Returns the key a node currently has in the heap.
+	 */
+	public double keyOf(int node) {
+		return keys[node];
+	}
+
+	/**
+	 * Removes the node with the smallest key and returns it.
+	 */
+	public int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int i) {
+		int node = heap[i];
+		double key = keys[node];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = heap[parent];
+			if (keys[p] <= key)
+				break;
+			heap[i] = p;
+			position[p] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i) {
+		int node = heap[i];
+		double key = keys[node];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < size && keys[heap[right]] < keys[heap[child]])
+				child = right;
+			int c = heap[child];
+			if (key <= keys[c])
+				break;
+			heap[i] = c;
+			position[c] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+}
+
+// code for COMP261 assignments
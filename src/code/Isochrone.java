@@ -0,0 +1,95 @@
+package code;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything reachable from one node within some cost, usually a travel time.
+ * The reachable nodes are the ones whose best route costs no more than the
+ * limit. The frontier is the segments the limit runs out part way along: for
+ * each, how far along it (from the reachable end) you can get, and where on
+ * the map that is. Those points, taken together, are the boundary.
+ */
+public class Isochrone {
+	public final int fromNodeID;
+	public final double limit;
+	public final int[] nodeIDs;
+	// segments leading out of the reachable nodes that can't be travelled all
+	// the way, and the node each one is entered from.
+	public final List<Segment> frontier;
+	public final List<Node> frontierEntries;
+	// fraction[i] is how much of frontier.get(i) can be travelled.
+	public final double[] fraction;
+	public final Location[] boundary;
+	// the shape of the reachable part of each frontier segment, from its
+	// entry node to its boundary point.
+	private final Location[][] reachedParts;
+
+	Isochrone(int fromNodeID, double limit, int[] nodeIDs, List<Segment> frontier,
+			List<Node> frontierEntries, double[] fraction) {
+		this.fromNodeID = fromNodeID;
+		this.limit = limit;
+		this.nodeIDs = nodeIDs;
+		this.frontier = Collections.unmodifiableList(frontier);
+		this.frontierEntries = Collections.unmodifiableList(frontierEntries);
+		this.fraction = fraction;
+		this.boundary = new Location[fraction.length];
+		this.reachedParts = new Location[fraction.length][];
+		for (int i = 0; i < boundary.length; i++) {
+			reachedParts[i] = partAlong(frontier.get(i), frontierEntries.get(i), fraction[i]);
+			boundary[i] = reachedParts[i][reachedParts[i].length - 1];
+		}
+	}
+
+	/**
+	 * Draws the reachable part of each frontier segment, and a dot at its
+	 * far end, which together trace out the boundary.
+	 */
+	public void draw(Graphics2D g, Location origin, double scale, int dotSize) {
+		for (int i = 0; i < boundary.length; i++) {
+			Location[] part = reachedParts[i];
+			Point p = part[0].asPoint(origin, scale);
+			for (int j = 1; j < part.length; j++) {
+				Point q = part[j].asPoint(origin, scale);
+				g.drawLine(p.x, p.y, q.x, q.y);
+				p = q;
+			}
+			g.fillOval(p.x - dotSize / 2, p.y - dotSize / 2, dotSize, dotSize);
+		}
+	}
+
+	/**
+	 * Returns the points of a segment's shape from the given end up to some
+	 * fraction of the way along it, ending with the point at that fraction.
+	 */
+	private static Location[] partAlong(Segment segment, Node entry, double fraction) {
+		int n = segment.pointCount;
+		if (n < 2)
+			return new Location[] { entry.location };
+		boolean reversed = segment.start != entry;
+		double total = 0;
+		for (int i = 1; i < n; i++)
+			total += segment.point(i - 1).distance(segment.point(i));
+		double remaining = fraction * total;
+		List<Location> part = new ArrayList<>();
+		part.add(segment.point(reversed ? n - 1 : 0));
+		for (int i = 1; i < n; i++) {
+			Location a = part.get(part.size() - 1);
+			Location b = segment.point(reversed ? n - i - 1 : i);
+			double d = a.distance(b);
+			if (d >= remaining && d > 0) {
+				double t = remaining / d;
+				part.add(new Location(a.x + (b.x - a.x) * t, a.y + (b.y - a.y) * t));
+				return part.toArray(new Location[0]);
+			}
+			part.add(b);
+			remaining -= d;
+		}
+		return part.toArray(new Location[0]);
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,281 @@
+package code;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Landmarks for the ALT (A*, Landmarks, Triangle inequality) heuristic. A
+ * handful of landmark nodes are picked around the edge of the map, and the
+ * cost from every landmark to every node and from every node to every landmark
+ * is worked out ahead of time. Then for any landmark L the triangle inequality
+ * gives two lower bounds on the cost from v to t:
+ *
+ * d(v, t) >= d(v, L) - d(t, L) and d(v, t) >= d(L, t) - d(L, v)
+ *
+ * and the largest of these is usually far tighter than straight line distance,
+ * since it already knows about the shape of the road network.
+ *
+ * Landmarks are tied to the edge weights they were computed with, so each
+ * CostModel needs its own.
+ */
+public class Landmarks {
+	public static final int DEFAULT_COUNT = 16;
+
+	private static final int MAGIC = 0x414c5431; // "ALT1"
+	private static final int VERSION = 1;
+
+	private final int count;
+	private final int nodeCount;
+	private final int[] landmarks;
+	// node-major, so all of one node's distances sit together:
+	// fromLandmark[v * count + i] is the cost from landmark i to node v, and
+	// toLandmark[v * count + i] the cost from node v to landmark i.
+	private final double[] fromLandmark;
+	private final double[] toLandmark;
+	// identifies the map and weights these were computed for.
+	private final long signature;
+
+	private Landmarks(int[] landmarks, int nodeCount, double[] fromLandmark,
+			double[] toLandmark, long signature) {
+		this.count = landmarks.length;
+		this.nodeCount = nodeCount;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+		this.signature = signature;
+	}
+
+	/**
+	 * Picks count landmarks and computes their distances under the given
+	 * weights (indexed by segment). The landmarks are picked by farthest-point
+	 * selection over the node coordinates, within the largest connected part
+	 * of the map; then one Dijkstra search forwards and one backwards from
+	 * each landmark run in parallel.
+	 */
+	public static Landmarks compute(CompactGraph compact, double[] weights, int count) {
+		int n = compact.nodeCount;
+		int[] chosen = select(compact, count);
+		int k = chosen.length;
+		double[] from = new double[n * k];
+		double[] to = new double[n * k];
+
+		IntStream.range(0, 2 * k).parallel().forEach(job -> {
+			int i = job >> 1;
+			boolean forward = (job & 1) == 0;
+			double[] dist = dijkstra(compact, weights, chosen[i], forward);
+			double[] out = forward ? from : to;
+			for (int v = 0; v < n; v++)
+				out[v * k + i] = dist[v];
+		});
+		return new Landmarks(chosen, n, from, to, compact.signature(weights));
+	}
+
+	/**
+	 * Returns a lower bound on the cost of getting from node index from to
+	 * node index to. This is 0 when the landmarks can't say anything.
+	 */
+	public double lowerBound(int from, int to) {
+		double best = 0;
+		int a = from * count, b = to * count;
+		for (int i = 0; i < count; i++) {
+			// d(from, L) - d(to, L)
+			double x = toLandmark[a + i], y = toLandmark[b + i];
+			if (x != Double.POSITIVE_INFINITY && y != Double.POSITIVE_INFINITY && x - y > best)
+				best = x - y;
+			// d(L, to) - d(L, from)
+			x = fromLandmark[b + i];
+			y = fromLandmark[a + i];
+			if (x != Double.POSITIVE_INFINITY && y != Double.POSITIVE_INFINITY && x - y > best)
+				best = x - y;
+		}
+		return best;
+	}
+
+	public int[] getLandmarks() {
+		return landmarks.clone();
+	}
+
+	/**
+	 * Returns true if these landmarks were computed for this graph and these
+	 * weights.
+	 */
+	public boolean matches(CompactGraph compact, double[] weights) {
+		return nodeCount == compact.nodeCount && signature == compact.signature(weights);
+	}
+
+	/**
+	 * Writes the landmarks to a file, so they don't have to be computed again
+	 * next time the map is loaded.
+	 */
+	public void save(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodeCount);
+			out.writeInt(count);
+			out.writeLong(signature);
+			for (int l : landmarks)
+				out.writeInt(l);
+			for (double d : fromLandmark)
+				out.writeDouble(d);
+			for (double d : toLandmark)
+				out.writeDouble(d);
+		}
+	}
+
+	/**
+	 * Reads landmarks written by save. Returns null if the file is for a
+	 * different map or different weights, or is from an older version.
+	 */
+	public static Landmarks load(File file, CompactGraph compact, double[] weights)
+			throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			int n = in.readInt();
+			int k = in.readInt();
+			long signature = in.readLong();
+			if (n != compact.nodeCount || signature != compact.signature(weights))
+				return null;
+			int[] chosen = new int[k];
+			for (int i = 0; i < k; i++)
+				chosen[i] = in.readInt();
+			double[] from = new double[n * k];
+			double[] to = new double[n * k];
+			for (int i = 0; i < from.length; i++)
+				from[i] = in.readDouble();
+			for (int i = 0; i < to.length; i++)
+				to[i] = in.readDouble();
+			return new Landmarks(chosen, n, from, to, signature);
+		}
+	}
+
+	/**
+	 * Loads landmarks from a file if it holds ones for this map and weights,
+	 * and otherwise computes them and writes them to the file. Failing to
+	 * write the file isn't fatal.
+	 */
+	public static Landmarks loadOrCompute(File file, CompactGraph compact, double[] weights) {
+		if (file.exists()) {
+			try {
+				Landmarks landmarks = load(file, compact, weights);
+				if (landmarks != null)
+					return landmarks;
+			} catch (IOException e) {
+				System.err.println("couldn't read " + file + ", recomputing: " + e.getMessage());
+			}
+		}
+		Landmarks landmarks = compute(compact, weights, DEFAULT_COUNT);
+		try {
+			landmarks.save(file);
+		} catch (IOException e) {
+			System.err.println("couldn't write " + file + ": " + e.getMessage());
+		}
+		return landmarks;
+	}
+
+	/**
+	 * Farthest-point selection: the first landmark is the node farthest from
+	 * the middle of the component, and each one after that is the node
+	 * farthest from all the landmarks picked so far.
+	 */
+	private static int[] select(CompactGraph compact, int count) {
+		int[] component = largestComponent(compact);
+		count = Math.min(count, component.length);
+		int[] chosen = new int[count];
+		if (count == 0)
+			return chosen;
+
+		double cx = 0, cy = 0;
+		for (int v : component) {
+			cx += compact.xs[v];
+			cy += compact.ys[v];
+		}
+		cx /= component.length;
+		cy /= component.length;
+
+		// nearest[j] is the distance from component[j] to the closest
+		// landmark so far; to start with, "so far" is just the centre.
+		double[] nearest = new double[component.length];
+		for (int j = 0; j < component.length; j++) {
+			int v = component[j];
+			nearest[j] = Math.hypot(compact.xs[v] - cx, compact.ys[v] - cy);
+		}
+		for (int i = 0; i < count; i++) {
+			int best = 0;
+			for (int j = 1; j < component.length; j++)
+				if (nearest[j] > nearest[best])
+					best = j;
+			int l = component[best];
+			chosen[i] = l;
+			for (int j = 0; j < component.length; j++) {
+				int v = component[j];
+				double d = Math.hypot(compact.xs[v] - compact.xs[l], compact.ys[v] - compact.ys[l]);
+				nearest[j] = i == 0 ? d : Math.min(nearest[j], d);
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Returns the node indices in the largest undirected component, using the
+	 * components the CompactGraph already worked out.
+	 */
+	private static int[] largestComponent(CompactGraph compact) {
+		int n = compact.nodeCount;
+		int[] size = new int[compact.componentCount];
+		for (int v = 0; v < n; v++)
+			size[compact.component[v]]++;
+		int best = 0;
+		for (int c = 1; c < size.length; c++)
+			if (size[c] > size[best])
+				best = c;
+		int[] component = new int[size.length == 0 ? 0 : size[best]];
+		int j = 0;
+		for (int v = 0; v < n && j < component.length; v++)
+			if (compact.component[v] == best)
+				component[j++] = v;
+		return component;
+	}
+
+	/**
+	 * Plain one-to-all Dijkstra from a node, over outgoing arcs (forward) or
+	 * incoming arcs (backward). Unreached nodes are left at infinity.
+	 */
+	static double[] dijkstra(CompactGraph compact, double[] weights, int source,
+			boolean forward) {
+		int[] offsets = forward ? compact.outOffsets : compact.inOffsets;
+		int[] targets = forward ? compact.outTargets : compact.inSources;
+		int[] segs = forward ? compact.outSegments : compact.inSegments;
+		double[] dist = new double[compact.nodeCount];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		IndexedHeap heap = new IndexedHeap(compact.nodeCount);
+		dist[source] = 0;
+		heap.insertOrDecrease(source, 0);
+		while (!heap.isEmpty()) {
+			int v = heap.poll();
+			double dv = dist[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int w = targets[k];
+				double d = dv + weights[segs[k]];
+				if (d < dist[w]) {
+					dist[w] = d;
+					heap.insertOrDecrease(w, d);
+				}
+			}
+		}
+		return dist;
+	}
+}
+
+// code for COMP261 assignments
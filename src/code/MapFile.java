@@ -0,0 +1,354 @@
+package code;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A map compiled to one binary file, so it can be loaded again without
+ * parsing the text files or building the CompactGraph. The file holds the
+ * node coordinates, the segments and their shapes (in Geometry's fixed
+ * point), the roads, and the
+ * CompactGraph's arrays (adjacency, flags and components) as they are, each
+ * as a length followed by the values, little-endian. Loading maps the file
+ * and copies each array out in one go.
+ *
+ * The header has a version, so a file from an older version is just compiled
+ * again, and the size and modification time of each text file it was made
+ * from, so a file for an older copy of the map is too. It also has a CRC-32
+ * of everything after it, which is checked before anything is read.
+ *
+ * The trie isn't kept; it holds Road objects, so it's as quick to build from
+ * the roads again as to read back.
+ */
+public class MapFile {
+	private static final int MAGIC = 0x4d415031; // "MAP1"
+	private static final int VERSION = 2;
+
+	/**
+	 * Writes a graph read from the given text files to a compiled file. It's
+	 * written alongside first and moved into place, so a reader never sees
+	 * half a file.
+	 */
+	public static void compile(Graph graph, File file, File... sources) throws IOException {
+		CompactGraph compact = graph.compact;
+		Output out = new Output();
+		out.putInt(compact.nodeCount);
+		out.putInt(compact.segmentCount);
+		out.putInt(compact.componentCount);
+		out.putInt(compact.sccCount);
+
+		out.putInts(compact.nodeIDs);
+		out.putDoubles(compact.xs);
+		out.putDoubles(compact.ys);
+
+		int[] roadIDs = new int[compact.segmentCount];
+		int[] pointOffsets = new int[compact.segmentCount + 1];
+		for (int s = 0; s < compact.segmentCount; s++) {
+			roadIDs[s] = compact.segments[s].roadID;
+			pointOffsets[s + 1] = pointOffsets[s] + compact.segments[s].pointCount;
+		}
+		// the shapes all together, in segment order.
+		int[] pointXs = new int[pointOffsets[compact.segmentCount]];
+		int[] pointYs = new int[pointXs.length];
+		for (int s = 0; s < compact.segmentCount; s++) {
+			Segment segment = compact.segments[s];
+			System.arraycopy(segment.geometry.xs, segment.first, pointXs, pointOffsets[s],
+					segment.pointCount);
+			System.arraycopy(segment.geometry.ys, segment.first, pointYs, pointOffsets[s],
+					segment.pointCount);
+		}
+		out.putInts(roadIDs);
+		out.putInts(compact.segmentStart);
+		out.putInts(compact.segmentEnd);
+		out.putDoubles(compact.segmentLength);
+		out.putBytes(compact.segmentFlags);
+		out.putInts(pointOffsets);
+		out.putInts(pointXs);
+		out.putInts(pointYs);
+
+		for (int[] array : compact.csr())
+			out.putInts(array);
+		out.putInts(compact.component);
+		out.putInts(compact.scc);
+
+		// the roads, in the order the map holds them.
+		out.putInt(graph.roads.size());
+		for (Road road : graph.roads.values()) {
+			out.putInt(road.roadID);
+			out.putInt(road.oneWay);
+			out.putInt(road.speedClass);
+			out.putInt(road.roadclass);
+			out.putByte(road.access);
+			out.putString(road.name);
+			out.putString(road.city);
+		}
+
+		ByteBuffer payload = out.buffer.flip();
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		ByteBuffer header = ByteBuffer.allocate(12 + 16 * sources.length + 16)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(sources.length);
+		for (File source : sources) {
+			header.putLong(source.length());
+			header.putLong(source.lastModified());
+		}
+		header.putLong(payload.remaining());
+		header.putLong(crc.getValue());
+		header.flip();
+
+		File partial = new File(file.getPath() + ".partial");
+		try (FileChannel channel = FileChannel.open(partial.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (header.hasRemaining())
+				channel.write(header);
+			while (payload.hasRemaining())
+				channel.write(payload);
+		}
+		Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Loads a compiled map. Returns null if it's from an older version or
+	 * any of the text files it was compiled from have changed since, and
+	 * throws a MapFormatException if it's been damaged.
+	 */
+	public static Graph load(File file, File... sources) throws IOException {
+		ByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		String name = file.getName();
+		try {
+			if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION
+					|| in.getInt() != sources.length)
+				return null;
+			for (File source : sources)
+				if (in.getLong() != source.length() || in.getLong() != source.lastModified())
+					return null;
+			long length = in.getLong();
+			long checksum = in.getLong();
+			if (length != in.remaining())
+				throw new MapFormatException(name, 0, "should have " + length
+						+ " bytes after the header, but has " + in.remaining());
+			CRC32 crc = new CRC32();
+			crc.update(in.duplicate());
+			if (crc.getValue() != checksum)
+				throw new MapFormatException(name, 0, "checksum doesn't match");
+			return read(new Input(in, name));
+		} catch (BufferUnderflowException e) {
+			throw new MapFormatException(name, 0, "ends too soon");
+		}
+	}
+
+	/**
+	 * Loads a compiled map if it's up to date with the text files, and
+	 * otherwise reads the text files and compiles them for next time.
+	 * Failing to write the compiled file isn't fatal.
+	 */
+	public static Graph loadOrCompile(File file, File nodes, File roads, File segments,
+			File polygons) {
+		File[] sources = { nodes, roads, segments };
+		if (file.exists()) {
+			try {
+				Graph graph = load(file, sources);
+				if (graph != null)
+					return graph;
+			} catch (IOException | MapFormatException e) {
+				System.err.println("couldn't read " + file + ", compiling again: " + e.getMessage());
+			}
+		}
+		Graph graph = new Graph(nodes, roads, segments, polygons);
+		try {
+			compile(graph, file, sources);
+		} catch (IOException e) {
+			System.err.println("couldn't write " + file + ": " + e.getMessage());
+		}
+		return graph;
+	}
+
+	private static Graph read(Input in) {
+		int nodeCount = in.getInt();
+		int segmentCount = in.getInt();
+		int componentCount = in.getInt();
+		int sccCount = in.getInt();
+
+		int[] nodeIDs = in.ints();
+		double[] xs = in.doubles();
+		double[] ys = in.doubles();
+		Node[] nodes = new Node[nodeCount];
+		Map<Integer, Node> nodeMap = new HashMap<>();
+		for (int i = 0; i < nodeCount; i++) {
+			nodes[i] = new Node(nodeIDs[i], new Location(xs[i], ys[i]));
+			nodeMap.put(nodeIDs[i], nodes[i]);
+		}
+
+		int[] roadIDs = in.ints();
+		int[] segmentStart = in.ints();
+		int[] segmentEnd = in.ints();
+		double[] segmentLength = in.doubles();
+		byte[] segmentFlags = in.bytes();
+		int[] pointOffsets = in.ints();
+		Geometry geometry = new Geometry(in.ints(), in.ints());
+		int[][] csr = new int[12][];
+		for (int i = 0; i < csr.length; i++)
+			csr[i] = in.ints();
+		int[] component = in.ints();
+		int[] scc = in.ints();
+
+		int roadCount = in.getInt();
+		Map<Integer, Road> roadMap = new HashMap<>();
+		for (int r = 0; r < roadCount; r++) {
+			int roadID = in.getInt();
+			int oneWay = in.getInt();
+			int speedClass = in.getInt();
+			int roadclass = in.getInt();
+			byte access = in.getByte();
+			String label = in.getString();
+			String city = in.getString();
+			// the type isn't kept by Road, so it isn't kept here either.
+			roadMap.put(roadID, new Road(roadID, 0, label, city, oneWay, speedClass, roadclass,
+					access & Road.NOT_FOR_CAR, access & Road.NOT_FOR_PEDESTRIAN,
+					access & Road.NOT_FOR_BICYCLE));
+		}
+
+		Segment[] segments = new Segment[segmentCount];
+		for (int s = 0; s < segmentCount; s++)
+			segments[s] = new Segment(roadMap.get(roadIDs[s]), nodes[segmentStart[s]],
+					nodes[segmentEnd[s]], segmentLength[s], geometry, pointOffsets[s],
+					pointOffsets[s + 1] - pointOffsets[s]);
+		List<Segment> segmentList = new ArrayList<>(Arrays.asList(segments));
+		Parser.wire(segmentList);
+
+		CompactGraph compact = new CompactGraph(nodes, segments, segmentStart, segmentEnd,
+				segmentFlags, csr, component, componentCount, scc, sccCount);
+		return new Graph(nodeMap, roadMap, segmentList, compact);
+	}
+
+	/**
+	 * A growing buffer to write the file into.
+	 */
+	private static class Output {
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		void ensure(long bytes) {
+			if (buffer.remaining() >= bytes)
+				return;
+			long size = Math.max(buffer.capacity() * 2L, buffer.position() + bytes);
+			if (size > Integer.MAX_VALUE)
+				throw new IllegalStateException("map too big to compile");
+			ByteBuffer bigger = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+			bigger.put(buffer.flip());
+			buffer = bigger;
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putByte(byte value) {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		void putInts(int[] values) {
+			putInt(values.length);
+			ensure(4L * values.length);
+			buffer.asIntBuffer().put(values);
+			buffer.position(buffer.position() + 4 * values.length);
+		}
+
+		void putDoubles(double[] values) {
+			putInt(values.length);
+			ensure(8L * values.length);
+			buffer.asDoubleBuffer().put(values);
+			buffer.position(buffer.position() + 8 * values.length);
+		}
+
+		void putBytes(byte[] values) {
+			putInt(values.length);
+			ensure(values.length);
+			buffer.put(values);
+		}
+
+		void putString(String value) {
+			putBytes(value.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Reads arrays back out of the mapped file.
+	 */
+	private static class Input {
+		final ByteBuffer buffer;
+		final String name;
+
+		Input(ByteBuffer buffer, String name) {
+			this.buffer = buffer;
+			this.name = name;
+		}
+
+		int getInt() {
+			return buffer.getInt();
+		}
+
+		byte getByte() {
+			return buffer.get();
+		}
+
+		/**
+		 * Reads an array's length, and checks there's room left for that
+		 * many values of the given size.
+		 */
+		private int length(int size) {
+			int length = buffer.getInt();
+			if (length < 0 || (long) length * size > buffer.remaining())
+				throw new MapFormatException(name, 0, "bad array length " + length);
+			return length;
+		}
+
+		int[] ints() {
+			int[] values = new int[length(4)];
+			buffer.asIntBuffer().get(values);
+			buffer.position(buffer.position() + 4 * values.length);
+			return values;
+		}
+
+		double[] doubles() {
+			double[] values = new double[length(8)];
+			buffer.asDoubleBuffer().get(values);
+			buffer.position(buffer.position() + 8 * values.length);
+			return values;
+		}
+
+		byte[] bytes() {
+			byte[] values = new byte[length(1)];
+			buffer.get(values);
+			return values;
+		}
+
+		String getString() {
+			return new String(bytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,21 @@
+package code;
+
+/**
+ * Thrown when a map file has something wrong with it, saying which file and
+ * which line the problem is on.
+ */
+public class MapFormatException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public final String fileName;
+	// the line the problem is on, counting from 1, or 0 if it isn't on one.
+	public final int line;
+
+	public MapFormatException(String fileName, int line, String message) {
+		super(fileName + (line > 0 ? " line " + line : "") + ": " + message);
+		this.fileName = fileName;
+		this.line = line;
+	}
+}
+
+// code for COMP261 assignments
@@ -9,16 +9,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
 
 /**
  * This is the main class for the mapping program. It extends the GUI abstract
@@ -31,6 +29,7 @@ public class Mapper extends GUI {
 	public static final Color NODE_COLOUR = new Color(77, 113, 255);
 	public static final Color SEGMENT_COLOUR = new Color(130, 130, 130);
 	public static final Color HIGHLIGHT_COLOUR = new Color(255, 219, 77);
+	public static final Color ISOCHRONE_COLOUR = new Color(230, 90, 40);
 
 	// these two constants define the size of the node squares at different zoom
 	// levels; the equation used is node size = NODE_INTERCEPT + NODE_GRADIENT *
@@ -45,6 +44,21 @@ public class Mapper extends GUI {
 	public static final double ZOOM_FACTOR = 1.3;
 	public static final double MIN_ZOOM = 1, MAX_ZOOM = 200;
 
+	// how far you can get in the isochrone, in minutes, unless the search box
+	// has a number in it.
+	public static final double DEFAULT_ISOCHRONE_MINUTES = 30;
+
+	// what a U-turn adds to a route, in km when going by distance and in
+	// hours when going by time.
+	public static final double U_TURN_DISTANCE = 0.2;
+	public static final double U_TURN_TIME = 0.5 / 60;
+
+	// how many alternatives to show as well as the best route.
+	public static final int ALTERNATIVE_COUNT = 2;
+
+	// the compiled map, kept next to the map files.
+	public static final String COMPILED_FILENAME = "map.bin";
+
 	// how far away from a node you can click before it isn't counted.
 	public static final double MAX_CLICKED_DISTANCE = 0.15;
 	
@@ -56,11 +70,13 @@ public class Mapper extends GUI {
 	// our data structures.
 	private Graph graph;
 	private Trie trie;
+	private RoutingEngine engine;
+	private CostModel timeCost;
+	// whether the map came with turn restrictions.
+	private boolean restricted;
 	
 	private Node fromNode = null;
 	private Node toNode = null;
-	private Queue<AStarElem> fringe = new PriorityQueue<>();	
-	private ArrayList<ArrayList<Node>> nodeGroups = new ArrayList<ArrayList<Node>>();
 	public boolean distance=true;
 	public boolean time =false;
 	
@@ -102,6 +118,7 @@ public class Mapper extends GUI {
 			graph.toNode=null;
 			graph.fromNode=null;
 			graph.highlightedSegments.clear();
+			graph.alternativeSegments.clear();
 			fromNode = null;
 			toNode = null;
 		}
@@ -136,6 +153,7 @@ public class Mapper extends GUI {
 		}
 
 		// set the highlighted roads.
+		graph.clearBlocks();
 		graph.setHighlight(selected);
 
 		// now build the string for display. we filter out duplicates by putting
@@ -180,11 +198,74 @@ public class Mapper extends GUI {
 
 	@Override
 	protected void onLoad(File nodes, File roads, File segments, File polygons) {
-		
-		graph = new Graph(nodes, roads, segments, polygons);
+		// the map is compiled to a binary file next to the text files the
+		// first time, which loads much faster after that.
+		File directory = nodes.getAbsoluteFile().getParentFile();
+		graph = MapFile.loadOrCompile(new File(directory, COMPILED_FILENAME), nodes, roads,
+				segments, polygons);
 		trie = new Trie(graph.roads.values());
+		engine = new RoutingEngine(graph.compact);
+		timeCost = new TimeCost(graph.roads.values());
+		// landmarks for the A* heuristic are kept next to the map files, and
+		// only worked out again when the map changes.
+		engine.setLandmarks(CostModel.DISTANCE, Landmarks.loadOrCompute(new File(directory, "landmarks-distance.alt"),
+				graph.compact, engine.weights(CostModel.DISTANCE)));
+		engine.setLandmarks(timeCost, Landmarks.loadOrCompute(new File(directory, "landmarks-time.alt"),
+				graph.compact, engine.weights(timeCost)));
+		// so are the contraction hierarchies, but they take a while to build,
+		// so that happens in the background; CH queries fall back to
+		// BIDIRECTIONAL until they're ready.
+		loadHierarchies(directory, engine, graph.compact, timeCost);
+		// turn restrictions and turn costs are optional.
+		File restrictions = new File(directory, GUI.RESTRICTIONS_FILENAME);
+		File turnCosts = new File(directory, GUI.TURN_COSTS_FILENAME);
+		restricted = restrictions.exists() || turnCosts.exists();
+		if (restricted)
+			engine.setTurnRestrictions(new TurnRestrictions(graph.compact,
+					restrictions.exists() ? Parser.parseRestrictions(restrictions) : List.of(),
+					turnCosts.exists() ? Parser.parseTurnCosts(turnCosts) : List.of()));
+		engine.setUTurnPenalty(CostModel.DISTANCE, U_TURN_DISTANCE);
+		engine.setUTurnPenalty(timeCost, U_TURN_TIME);
+		// turn delays only make a difference to the time; TimeCost is in
+		// hours.
+		engine.setTurnCostScale(timeCost, 1.0 / 3600);
+
+		// point out bits of the map you can drive into but not out of.
+		List<int[]> traps = graph.compact.oneWayTraps();
+		if (!traps.isEmpty()) {
+			String text = traps.size() + " one-way traps in the map data:";
+			for (int[] trap : traps)
+				text += "\n" + trap.length + " nodes, eg. node " + trap[0];
+			getTextOutputArea().setText(text);
+		}
 		origin = new Location(-9, 2); // center the small graph
 		scale = 66;
+
+		// the polygons only make the map look nicer, so don't wait for them.
+		if (polygons != null)
+			graph.loadPolygons(polygons, this::redraw);
+	}
+
+	/**
+	 * Loads or builds the distance and time hierarchies on a thread of their
+	 * own, and hands each to the engine as it's ready.
+	 */
+	private static void loadHierarchies(File directory, RoutingEngine engine,
+			CompactGraph compact, CostModel timeCost) {
+		Thread loader = new Thread(() -> {
+			try {
+				engine.setContractionHierarchy(CostModel.DISTANCE, ContractionHierarchy.loadOrCompute(
+						new File(directory, "hierarchy-distance.ch"), compact,
+						engine.weights(CostModel.DISTANCE)));
+				engine.setContractionHierarchy(timeCost, ContractionHierarchy.loadOrCompute(
+						new File(directory, "hierarchy-time.ch"), compact, engine.weights(timeCost)));
+			} catch (RuntimeException e) {
+				System.err.println("couldn't build the contraction hierarchies: " + e.getMessage());
+			}
+		}, "hierarchy loader");
+		loader.setDaemon(true);
+		loader.setPriority(Thread.MIN_PRIORITY);
+		loader.start();
 	}
 
 	/**
@@ -215,374 +296,116 @@ public class Mapper extends GUI {
 	@Override
 	protected void onAStar() {
 		String text="";
-		fringe.clear();
 		double dis = 0;
-		ArrayList<Node> visitedNode = new ArrayList<>();
 		if(fromNode == null || toNode == null) {
 			System.err.println("one of the two node is null");
 		}
 		else {
+			graph.clearBlocks();
 			graph.setHighlightFromNode(fromNode);
 			graph.setHighlightToNode(toNode);
-			findAllNeighbourForAllNodes();
-			AStarElem firstElem = new AStarElem(fromNode, null, 0 , euclideanDistance(fromNode,toNode));
-			fringe.add(firstElem);
-		while(!fringe.isEmpty()) {
-			AStarElem aStarElement = fringe.poll();
-			Node elemNode = aStarElement.getCurrentNode();		
-			if(!visitedNode.contains(elemNode)) { // not visited yet
-				visitedNode.add(elemNode);	
-				elemNode.setPrev(aStarElement.getPreviousNode());
-				if(elemNode.equals(toNode)) {
-					dis = aStarElement.getG();
-					break;
-				}
-				else {
-					for(Segment segment: elemNode.getNeighbourSegment()) {
-						Node neighbour=null;
-						if(segment.start==elemNode) {neighbour = segment.end;}
-						else if(segment.end==elemNode) {neighbour = segment.start;}
-						if(!visitedNode.contains(neighbour)) {
-							double g = aStarElement.getG()+segment.length;
-							double f = g +  euclideanDistance(neighbour,toNode);
-							AStarElem newElem = new AStarElem(neighbour,elemNode,g,f);
-							fringe.add(newElem);
-						}
-					}			
-				}	
+			Route route = engine.routeIgnoringOneWay(fromNode.nodeID, toNode.nodeID, CostModel.DISTANCE);
+			for(Segment segment: route.segments) {
+				text =text + segment.road.name+" with length of "+segment.length + "\n";
+				graph.highlightedSegments.add(segment);
 			}
-		}
-		ArrayList<Node> shortestPath = new ArrayList<>();		
-		shortestPath = this.getShortestPath(toNode,shortestPath);
-		for(int i=0; i<shortestPath.size()-1;i++) {
-			Node from = shortestPath.get(i);
-			Node to = shortestPath.get(i+1);
-			ArrayList<Segment> segments = new ArrayList<>(from.segments);
-			for(Segment segment: segments) {
-				
-				if((segment.start==from && segment.end==to) || (segment.start==to && segment.end == from)){
-					String roadName = graph.roads.get(segment.roadID).name;
-					double segmentLength = segment.length;
-					text =text + roadName+" with length of "+segmentLength + "\n";
-					graph.highlightedSegments.add(segment);
-				}
+			if(route.isFound()) {
+				dis = route.length;
 			}
+			fromNode = null;
+			toNode = null;
 		}
-		fromNode = null;
-		toNode = null;
-	}
 		text=text+("\n total distance is "+dis);
 		getTextOutputArea().setText(text);
-}
+	}
 	
 	protected void onAStarComp() {
 		graph.highlightedSegments.clear();
-		String text ="";
-		double dis = 0;
-		fringe.clear();
-		ArrayList<Node> visited = new ArrayList<>();
+		graph.alternativeSegments.clear();
 		if(fromNode == null || toNode == null) {
 			System.err.println("one of the two node is null");
+			return;
 		}
-		else {
-			
-			graph.setHighlightFromNode(fromNode);
-			graph.setHighlightToNode(toNode);
-			findAllNeighbourForAllNodes();	
-			
-			// if default is finding the shortest path in distance
-			if(distance==true) {
-				AStarElem firstElem = new AStarElem(fromNode, null, 0 , euclideanDistance(fromNode,toNode));
-				fringe.add(firstElem);
-				while(!fringe.isEmpty()) {
-					AStarElem aStarElement = fringe.poll();
-					Node elemNode = aStarElement.getCurrentNode();		
-					if(!visited.contains(elemNode)) { // not visited yet
-						visited.add(elemNode);	
-						elemNode.setPrev(aStarElement.getPreviousNode());
-						if(elemNode.equals(toNode)) {
-							dis = aStarElement.getG();
-							break;
-						}											
-						for(Segment segment: elemNode.getOutgoingSegment()) {							
-							Node neighbour=null;
-							if(segment.start==elemNode) {neighbour = segment.end;}
-							else if(segment.end==elemNode) {neighbour = segment.start;}
-							if(!visited.contains(neighbour)) {
-								double g = aStarElement.getG()+segment.length;
-								double f = g +  euclideanDistance(neighbour,toNode);
-								AStarElem newElem = new AStarElem(neighbour,elemNode,g,f);
-								fringe.add(newElem);
-							}
-						}
-					}
-				}		
-			}
-			
-			// if default is finding the shortest path in time
-			else if(time == true) {
-				// APS will be node,prev,time taken,estimated time
-				AStarElem firstElem = new AStarElem(fromNode, null, 0 , estimatedTime(fromNode,toNode));
-				fringe.add(firstElem);
-				while(!fringe.isEmpty()) {
-					AStarElem aStarElement = fringe.poll();
-					Node elemNode = aStarElement.getCurrentNode();		
-					if(!visited.contains(elemNode)) { // not visited yet
-						visited.add(elemNode);	
-						elemNode.setPrev(aStarElement.getPreviousNode());
-						if(elemNode.equals(toNode)) {
-							dis = aStarElement.getG();
-							break;
-						}
-						
-						for(Segment segment: elemNode.getOutgoingSegment()) {
-							Node neighbour=null;
-							if(segment.start==elemNode) {neighbour = segment.end;}
-							else if(segment.end==elemNode) {neighbour = segment.start;}
-							if(!visited.contains(neighbour)) {
-								double g = aStarElement.getG()+timeNeedToGoThroughSegment(segment);
-								double f = g + estimatedTime(neighbour,toNode);
-								AStarElem newElem = new AStarElem(neighbour,elemNode,g,f);
-								fringe.add(newElem);
-							}
-						}
-					}
-				}
-			}
-		}
-		ArrayList<Node> shortestPath = new ArrayList<>();	
-		double dis2 =0;
-		shortestPath = this.getShortestPath(toNode,shortestPath);
-		ArrayList<String> roadName = new ArrayList<>();
-		ArrayList<Double> lengths = new ArrayList<>();
-		String roadName1="";
-		double roadLength =0;
-		Node node1 = shortestPath.get(0);
-		Node node2 = shortestPath.get(1);
-		for(Segment segment: node1.segments) {
-			if((segment.start==node1 && segment.end==node2) || segment.end==node1 && segment.start==node2) {
-				roadName1 = graph.roads.get(segment.roadID).name;
-			}
-			break;
+		graph.clearBlocks();
+		graph.setHighlightFromNode(fromNode);
+		graph.setHighlightToNode(toNode);
+		
+		// shortest path in distance by default, or in time
+		CostModel cost = (time && !distance) ? timeCost : CostModel.DISTANCE;
+		// the hierarchy can't see turns, so only use it if there are none
+		// to worry about.
+		SearchMode mode = restricted ? SearchMode.EDGE_BASED : SearchMode.CH;
+		Route route = engine.route(fromNode.nodeID, toNode.nodeID, cost, mode);
+		String text ="";
+		if(!route.isFound()) {
+			text = "no route from " + fromNode.nodeID + " to " + toNode.nodeID;
 		}
-		for(int i=0; i<shortestPath.size()-1;i++) {
-			Node from = shortestPath.get(i);
-			Node to = shortestPath.get(i+1);
-			ArrayList<Segment> segments = new ArrayList<>(from.segments);
-			for(Segment segment: segments) {
-				if(graph.roads.get(segment.roadID).oneWay==0) {
-					if((segment.start==from && segment.end==to) || (segment.start==to && segment.end == from)){
-						graph.highlightedSegments.add(segment);
-						if(graph.roads.get(segment.roadID).name.equals(roadName1)) {
-							roadLength = roadLength + segment.length;
-						}
-						else {
-							roadName.add(roadName1); 
-							lengths.add(roadLength);
-							roadName1 =graph.roads.get(segment.roadID).name;
-							roadLength=segment.length;
-						}
-					}
-				}
-				if(graph.roads.get(segment.roadID).oneWay==1) {
-					if(segment.start== from && segment.end==to) {
-						graph.highlightedSegments.add(segment);
-						if(graph.roads.get(segment.roadID).name.equals(roadName1)) {roadLength = roadLength + segment.length;}
-						else {
-							roadName.add(roadName1); 
-							lengths.add(roadLength);
-							roadName1 =graph.roads.get(segment.roadID).name;
-							roadLength=segment.length;
-						}
-					}
-				}			
+		else {
+			graph.highlightedSegments.addAll(route.segments);
+			for(Route.Leg leg: route.legs) {
+				text = text+"\n" + leg.roadName + ": " + leg.getLength();
 			}
-			if(i+1==shortestPath.size()-1) {
-				roadName.add(roadName1);
-				lengths.add(roadLength);
+			text = text + "\n" + route.length;
+			// alternatives can't see turns either, so leave them out when
+			// there are restrictions.
+			if (!restricted) {
+				List<Route> routes = engine.alternatives(fromNode.nodeID, toNode.nodeID, cost,
+						ALTERNATIVE_COUNT + 1);
+				List<Route> alternatives = routes.subList(Math.min(1, routes.size()), routes.size());
+				graph.setAlternatives(alternatives);
+				for (int i = 0; i < alternatives.size(); i++)
+					text = text + "\nalternative " + (i + 1) + ": " + alternatives.get(i).length;
 			}
-			
-		}
-		for(int j=0; j<lengths.size();j++) {
-//			System.out.println(lengths.size());
-//			System.out.println(roadName.size());
-			double length = lengths.get(j);
-			dis2 = dis2+length;
-			String road = roadName.get(j);
-
-			text = text+"\n" + road + ": " + length;
 		}
-		text = text + "\n" + dis2;
 		getTextOutputArea().setText(text);
 		fromNode = null;
 		toNode = null;
 	}
 	
 	
-	public ArrayList<Node> getShortestPath(Node current,ArrayList<Node> path){
-		while(current!=null) {
-			path.add(0,current);
-			current=current.getPre();
-		}
-		return path;
-	}
-	
-	
 	@Override
 	protected void onAPs() {
-		// getting a random node
-		findAllNeighbourForAllNodes();
-		splitNodeGroups();
-		for(int i=0; i<nodeGroups.size();i++) {
-			Node rootNode = nodeGroups.get(i).get(0);		
-			rootNode.setDepth(0);
-			for(Node neighbour: rootNode.getNeighbour()) {
-				if(neighbour.getDepth()==-1) {
-					iterArtPts(neighbour,1,rootNode);
-					 rootNode.setNOSubtree();
-				}
-				if(rootNode.getNOSubtree()>1) {
-					if(!graph.highlightedAPs.contains(rootNode)) {
-						graph.highlightedAPs.add(rootNode);
-					}
-				}
-			}
+		ArticulationPoints aps = new ArticulationPoints(graph.compact);
+		graph.highlightedAPs.clear();
+		BitSet found = aps.getArticulationPoints();
+		for (int v = found.nextSetBit(0); v >= 0; v = found.nextSetBit(v + 1))
+			graph.highlightedAPs.add(graph.compact.nodes[v]);
+
+		graph.setBlocks(aps);
+
+		String text = graph.highlightedAPs.size() + " articulation points, "
+				+ aps.getBridges().cardinality() + " bridges and " + aps.getBlockCount()
+				+ " blocks in " + aps.getComponentCount() + " components";
+		for (int c = 0; c < aps.getComponentCount(); c++) {
+			if (aps.getArticulationPointCount(c) > 0 || aps.getBridgeCount(c) > 0)
+				text += "\ncomponent " + c + ": " + aps.getArticulationPointCount(c)
+						+ " articulation points, " + aps.getBridgeCount(c) + " bridges";
 		}
-		
-		System.out.println(" xx " + graph.highlightedAPs.size());
-		
+		getTextOutputArea().setText(text);
 	}
-	
-	public void iterArtPts(Node firstNode, int depth, Node root) {
-		Stack<APs> fringe1 = new Stack<>();
-		APs element = new APs(firstNode, depth, root);
-		fringe1.push(element);
-		
-		while(!fringe1.isEmpty()) {
-			APs point = fringe1.peek();
-			Node currentNode = point.node;
-			
-			// if point hasn't been visited	
-			if(currentNode.getDepth()==-1) {
-				currentNode.setDepth(point.getDepth());
-				currentNode.setReachBack(point.getDepth());
-				ArrayList<Segment> segments = new ArrayList<>(currentNode.segments);
-				for(Segment segment:segments) {
-					// adding all neighbors that are not the parent
-					if(segment.start==currentNode && segment.end!=point.getParent()) {
-						// if start is current and end is not parent
-						currentNode.addToNeighbour(segment.end); 
-					}
-					else if(segment.end==currentNode && segment.start!=point.getParent()) {
-						currentNode.addToNeighbour(segment.start);
-					}
-				}
-			}
-			
-			// if node is visited but children not empty
-			else if(!currentNode.getNeighbour().isEmpty()) {
-				Node neighbour = currentNode.getNeighbour().get(0);
-				currentNode.removeNeighbour(neighbour);
-				if(neighbour.getDepth()!= -1) {
-					currentNode.setReachBack(min(neighbour.getDepth(),currentNode.getReachBack()));
-				}
-				else {
-					APs newPoint = new APs(neighbour,point.getDepth()+1,currentNode);
-					fringe1.push(newPoint);
-				}
-			}
-			
-			// if node is visited but no more children
-			else {
-				if(currentNode!=firstNode) {
-					point.getParent().setReachBack(min(currentNode.getReachBack(),
-													   point.getParent().getReachBack()));
-					if(currentNode.getReachBack()>= point.getParent().getDepth()) {
-						if(!graph.highlightedAPs.contains(point.getParent())) {
-							graph.highlightedAPs.add(point.getParent());
-						}
-					}
-				}
-				fringe1.remove(point);
-			}
-		}
 
-	}
-	
-	public int min(int x, int y) {
-		if(x-y>0) {return y;}
-		else {return x;}
-	}
-	
-	public void splitNodeGroups() {
-		ArrayList<Node> copyListOfAllNodes = new ArrayList<>(graph.nodes.values());
-		ArrayList<Node> visited = new ArrayList<Node>();
-		while(!copyListOfAllNodes.isEmpty()) {
-			ArrayList<Node> group = new ArrayList<>();
-			Node rootNode = copyListOfAllNodes.get(0);
-			group = recursiveCall(rootNode, group,visited);
-			nodeGroups.add(group);
-			copyListOfAllNodes.removeAll(group);
-			visited.addAll(group);
-		}
-				
-	}
-	
-	public ArrayList<Node> recursiveCall(Node node, ArrayList<Node> group,ArrayList<Node> visited) {
-		visited.add(node);
-		group.add(node);
-		for(Node neighbour: node.getNeighbour()) {
-			if(!visited.contains(neighbour)) {
-				node = neighbour;
-				group = recursiveCall(node, group,visited);
-			}
+	@Override
+	protected void onIsochrone() {
+		if (fromNode == null) {
+			graph.setIsochrone(null);
+			System.err.println("select a node first");
+			return;
 		}
-		return group;
-	}
-	
-	public void findAllNeighbourForAllNodes() {
-		for(Node fromNode: graph.nodes.values()) {
-			for(Segment segment: fromNode.segments) {
-				// if the segment of the road isn't one way 
-				if(graph.roads.get(segment.roadID).oneWay==0) {
-					if(segment.start == fromNode) {
-						//adding to the outgoing neighbour
-						fromNode.addToOutg(segment.end);
-						//adding to the outgoing segment
-						fromNode.addToOutSegments(segment);
-						if(!fromNode.getNeighbour().contains(segment.end)) { // in case there's duplicate
-							fromNode.addToNeighbour(segment.end);
-							fromNode.addToNeighbourtSegments(segment);
-						}
-					}
-					if(segment.end==fromNode) {
-						fromNode.addToOutg(segment.start);
-						//adding to the outgoing segment
-						fromNode.addToOutSegments(segment);
-						if(!fromNode.getNeighbour().contains(segment.start)) { // in case there's duplicate
-							fromNode.addToNeighbour(segment.start);
-							fromNode.addToNeighbourtSegments(segment);
-						}
-					}
-				}
-				// if the segment is from a one way road only add in the same order
-				else if(graph.roads.get(segment.roadID).oneWay==1) {
-					if(segment.start==fromNode) {
-						fromNode.addToOutg(segment.end);
-						fromNode.addToOutSegments(segment);
-						fromNode.addToNeighbour(segment.end);
-						fromNode.addToNeighbourtSegments(segment);
-						
-					}
-					if(segment.end==fromNode) { // one way but still can be neighbour
-						if(!fromNode.getNeighbour().contains(segment.start)) { // in case there's duplicate
-							fromNode.addToNeighbour(segment.start);
-							fromNode.addToNeighbourtSegments(segment);
-						}
-					}
-				}			
-			}
+		double minutes = DEFAULT_ISOCHRONE_MINUTES;
+		try {
+			minutes = Double.parseDouble(getSearchBox().getText().trim());
+		} catch (NumberFormatException e) {
+			// not a number, so keep the default.
 		}
+		// TimeCost is in hours.
+		Isochrone isochrone = engine.isochrone(fromNode.nodeID, timeCost, minutes / 60);
+		graph.clearBlocks();
+		graph.setIsochrone(isochrone);
+		getTextOutputArea().setText(isochrone.nodeIDs.length + " nodes reachable within "
+				+ minutes + " minutes of " + fromNode.nodeID + ", " + isochrone.frontier.size()
+				+ " segments on the boundary");
+		fromNode = null;
+		graph.setHighlightFromNode(null);
 	}
 
 	@Override
@@ -601,23 +424,6 @@ public class Mapper extends GUI {
 
 		
 	}
-	public double euclideanDistance(Node formNode, Node toNode) {
-		return fromNode.location.distance(toNode.location);
-	}
-	
-	public double estimatedTime(Node fromNode, Node toNode) {
-		// average speed in the map is 80
-		// average road class is 2
-		// heurisicTime will be the eucledean distance/(average speed + average roadclass)
-		double estimate = euclideanDistance(fromNode,toNode)/(80+3);
-		return estimate;
-	}
-	
-	public double timeNeedToGoThroughSegment(Segment segment) {
-		double speedLimit = graph.roads.get(segment.roadID).getSpeedLimit();
-		double time = segment.length / (speedLimit+graph.roads.get(segment.roadID).roadclass);
-		return time;
-		}
 }
 
 
@@ -4,15 +4,15 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Node represents an intersection in the road graph. It stores its ID and its
- * location, as well as all the segments that it connects to. It knows how to
- * draw itself, and has an informative toString method.
+ * location; the segments it connects to are looked up in the CompactGraph it
+ * was packed into, rather than kept in a set of its own. It knows how to draw
+ * itself, and has an informative toString method.
  * 
  * @author tony
  */
@@ -20,48 +20,31 @@ public class Node {
 	
 	public final int nodeID;
 	public final Location location;
-	public final Collection<Segment> segments;
-	private Node previous = null;
-	private int depth = -1;
-	private int reachBack=0;
-	private Node parent = null;
-	private int numSubTree =0;
-	private ArrayList<Node> neighbour = new ArrayList<>();
-	private HashSet<Node> incomingList = new HashSet<>();
-	private HashSet<Node> outGoingList = new HashSet<>();
-	private HashSet<Segment> outGoingSegments = new HashSet<>();
-	private HashSet<Segment> neighbourSegments = new HashSet<>();
-	
+	// position of this node in the CompactGraph arrays, set when it's built.
+	int index = -1;
+	// the graph this node was packed into; its adjacency lives there.
+	CompactGraph compact;
 	
 	public Node(int nodeID, double lat, double lon) {
-		this.nodeID = nodeID;
-		this.location = Location.newFromLatLon(lat, lon);
-		this.segments = new HashSet<Segment>();
+		this(nodeID, Location.newFromLatLon(lat, lon));
 	}
 
-	public void addSegment(Segment seg) {
-		segments.add(seg);
+	Node(int nodeID, Location location) {
+		this.nodeID = nodeID;
+		this.location = location;
 	}
-	public void setPrev(Node node) {previous = node;}
-	public Node getPre() {return previous;}
-	public void setDepth(int x) {depth=x;}
-	public int getDepth() {return depth;}
-	public void setReachBack(int x) {reachBack =x;}
-	public int getReachBack() {return reachBack;}
-	public ArrayList<Node> getNeighbour() {return neighbour;}
-	public void addToNeighbour(Node node) {neighbour.add(node);}
-	public void removeNeighbour(Node node) {neighbour.remove(node);}
-	public int getNOSubtree() {return numSubTree;}
-	public void setNOSubtree() {numSubTree++;}
-	public Node getParent() {return parent;}
-	public HashSet<Node> getIncoming(){return incomingList;}
-	public HashSet<Node> getOutgoing(){return outGoingList;}
-	public void addToInc(Node node) {incomingList.add(node);}
-	public void addToOutg(Node node) {outGoingList.add(node);}
-	public void addToOutSegments(Segment segment) {outGoingSegments.add(segment);}
-	public HashSet<Segment> getOutgoingSegment(){return outGoingSegments;}
-	public void addToNeighbourtSegments(Segment segment) {neighbourSegments.add(segment);}
-	public HashSet<Segment> getNeighbourSegment(){return neighbourSegments;}
+
+	// adjacency, worked out once when the map is loaded. these are read-only
+	// views onto the CompactGraph arrays; incoming and outgoing respect one-way
+	// roads, adjacent and neighbour segments don't.
+	public List<Node> getIncoming() {return compact.nodeSlice(compact.inOffsets, compact.inSources, index);}
+	public List<Node> getOutgoing() {return compact.nodeSlice(compact.outOffsets, compact.outTargets, index);}
+	public List<Node> getAdjacent() {return compact.nodeSlice(compact.adjOffsets, compact.adjTargets, index);}
+	public List<Segment> getIncomingSegment() {return compact.segmentSlice(compact.inOffsets, compact.inSegments, index);}
+	public List<Segment> getOutgoingSegment() {return compact.segmentSlice(compact.outOffsets, compact.outSegments, index);}
+	public List<Segment> getNeighbourSegment() {return compact.segmentSlice(compact.adjOffsets, compact.adjSegments, index);}
+	// every segment that touches this node; a loop is in it twice.
+	public List<Segment> getSegments() {return compact.segmentSlice(compact.bothOffsets, compact.bothSegments, index);}
 	
 	public void draw(Graphics g, Dimension area, Location origin, double scale) {
 		Point p = location.asPoint(origin, scale);
@@ -77,7 +60,7 @@ public class Node {
 
 	public String toString() {
 		Set<String> edges = new HashSet<String>();
-		for (Segment s : segments) {
+		for (Segment s : getSegments()) {
 			if (!edges.contains(s.road.name))
 				edges.add(s.road.name);
 		}
@@ -1,50 +1,50 @@
 package code;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
- * This utility class provides three static methods for parsing each of the
- * three files we're interested in, and returning the relevant data structure.
- * Internally it uses BufferedReaders instead of Scanners to read in the files,
- * as Scanners are pathetically slow.
+ * This utility class provides static methods for parsing each of the files
+ * we're interested in, and returning the relevant data structure.
+ * Internally it reads the files with a TabReader, which parses numbers
+ * straight out of the file's bytes rather than splitting each line into
+ * Strings first, and says which line is at fault when one is malformed.
+ * The segments file, the biggest, is read in chunks on several threads.
  * 
  * @author tony
  */
 public class Parser {
+	// the segments file is split into about this many chunks per thread, so
+	// one slow chunk doesn't hold the rest up, but none smaller than this.
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final long MIN_CHUNK_BYTES = 64 * 1024;
 
 	public static Map<Integer, Node> parseNodes(File nodes, Graph graph) {
 		Map<Integer, Node> map = new HashMap<Integer, Node>();
 
 		try {
-			// make a reader
-			BufferedReader br = new BufferedReader(new FileReader(nodes));
-			String line;
+			TabReader reader = new TabReader(nodes);
 
 			// read in each line of the file
-			while ((line = br.readLine()) != null) {
-				// tokenise the line by splitting it at the tabs.
-				String[] tokens = line.split("[\t]+");
-
-				// process the tokens
-				int nodeID = asInt(tokens[0]);
-				double lat = asDouble(tokens[1]);
-				double lon = asDouble(tokens[2]);
+			while (reader.nextLine()) {
+				int nodeID = reader.nextInt();
+				double lat = reader.nextDouble();
+				double lon = reader.nextDouble();
 
 				Node node = new Node(nodeID, lat, lon);
 				map.put(nodeID, node);
 			}
-
-			br.close();
 		} catch (IOException e) {
-			throw new RuntimeException("file reading failed.");
+			throw new RuntimeException("reading " + nodes.getName() + " failed.", e);
 		}
 
 		return map;
@@ -54,77 +54,200 @@ public class Parser {
 		Map<Integer, Road> map = new HashMap<Integer, Road>();
 
 		try {
-			BufferedReader br = new BufferedReader(new FileReader(roads));
-			br.readLine(); // throw away the top line of the file.
-			String line;
-
-			while ((line = br.readLine()) != null) {
-				String[] tokens = line.split("[\t]+");
-
-				int roadID = asInt(tokens[0]);
-				int type = asInt(tokens[1]);
-				String label = tokens[2];
-				String city = tokens[3];
-				int oneway = asInt(tokens[4]);
-				int speed = asInt(tokens[5]);
-				int roadclass = asInt(tokens[6]);
-				int notforcar = asInt(tokens[7]);
-				int notforpede = asInt(tokens[8]);
-				int notforbicy = asInt(tokens[8]);
+			TabReader reader = new TabReader(roads);
+			reader.nextLine(); // throw away the top line of the file.
+
+			while (reader.nextLine()) {
+				int roadID = reader.nextInt();
+				int type = reader.nextInt();
+				String label = reader.nextString();
+				String city = reader.nextString();
+				int oneway = reader.nextInt();
+				int speed = reader.nextInt();
+				int roadclass = reader.nextInt();
+				int notforcar = reader.nextInt();
+				int notforpede = reader.nextInt();
+				int notforbicy = reader.nextInt();
 
 				Road road = new Road(roadID, type, label, city, oneway, speed,
 						roadclass, notforcar, notforpede, notforbicy);
 				map.put(roadID, road);
 			}
-
-			br.close();
 		} catch (IOException e) {
-			throw new RuntimeException("file reading failed.");
+			throw new RuntimeException("reading " + roads.getName() + " failed.", e);
 		}
 
 		return map;
 	}
 
+	/**
+	 * Reads the segments file in chunks, in parallel, then adds each segment
+	 * to its road. The roads and nodes have to be read already.
+	 */
 	public static Collection<Segment> parseSegments(File segments, Graph graph) {
-		Set<Segment> set = new HashSet<Segment>();
-
+		TabReader[] chunks;
 		try {
-			BufferedReader br = new BufferedReader(new FileReader(segments));
-			br.readLine(); // throw away the top line of the file.
-			String line;
-
-			while ((line = br.readLine()) != null) {
-				String[] tokens = line.split("[\t]+");
+			TabReader reader = new TabReader(segments);
+			reader.nextLine(); // throw away the top line of the file.
+			int parts = (int) Math.min(CHUNKS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism(),
+					segments.length() / MIN_CHUNK_BYTES + 1);
+			chunks = reader.split(parts);
+		} catch (IOException e) {
+			throw new RuntimeException("reading " + segments.getName() + " failed.", e);
+		}
 
-				int roadID = asInt(tokens[0]);
-				double length = asDouble(tokens[1]);
-				int node1ID = asInt(tokens[2]);
-				int node2ID = asInt(tokens[3]);
+		// the stream is ordered, so the chunks come back in file order.
+		List<List<Segment>> parsed = IntStream.range(0, chunks.length).parallel()
+				.mapToObj(i -> parseSegments(chunks[i], graph)).collect(Collectors.toList());
+		// a list rather than a set, so segments keep their file order and get
+		// the same index in the CompactGraph every time the map is loaded.
+		List<Segment> list = new ArrayList<Segment>();
+		for (List<Segment> part : parsed)
+			list.addAll(part);
+
+		wire(list);
+		return list;
+	}
 
-				double[] coords = new double[tokens.length - 4];
-				for (int i = 4; i < tokens.length; i++)
-					coords[i - 4] = asDouble(tokens[i]);
+	/**
+	 * Adds each segment to its road; the nodes find their segments in the
+	 * CompactGraph instead. The segments are split into one group per worker
+	 * by road ID, so no two workers touch the same road and none need
+	 * locking.
+	 */
+	static void wire(List<Segment> segments) {
+		int workers = ForkJoinPool.getCommonPoolParallelism();
+		List<List<Segment>> groups = new ArrayList<>();
+		for (int w = 0; w < workers; w++)
+			groups.add(new ArrayList<Segment>());
+		for (Segment segment : segments)
+			groups.get(Math.floorMod(segment.roadID, workers)).add(segment);
+		groups.parallelStream().forEach(group -> {
+			for (Segment segment : group)
+				segment.road.addSegment(segment);
+		});
+	}
 
-				Segment segment = new Segment(graph, roadID, length, node1ID,
-						node2ID, coords);
-				set.add(segment);
+	private static List<Segment> parseSegments(TabReader reader, Graph graph) {
+		List<Segment> list = new ArrayList<Segment>();
+		// the coordinates of one line, before they're copied out for its
+		// Segment.
+		double[] coords = new double[64];
+		// the shapes of all the segments in this chunk.
+		Geometry geometry = new Geometry(1024);
+
+		while (reader.nextLine()) {
+			int roadID = reader.nextInt();
+			double length = reader.nextDouble();
+			int node1ID = reader.nextInt();
+			int node2ID = reader.nextInt();
+			if (!graph.roads.containsKey(roadID))
+				throw reader.error("no road with ID " + roadID);
+			if (!graph.nodes.containsKey(node1ID))
+				throw reader.error("no node with ID " + node1ID);
+			if (!graph.nodes.containsKey(node2ID))
+				throw reader.error("no node with ID " + node2ID);
+
+			int count = 0;
+			while (reader.hasField()) {
+				if (count == coords.length)
+					coords = Arrays.copyOf(coords, count * 2);
+				coords[count++] = reader.nextDouble();
 			}
 
-			br.close();
+			int first = geometry.size;
+			for (int i = 0; i + 1 < count; i += 2)
+				geometry.add(Location.newFromLatLon(coords[i], coords[i + 1]));
+			Segment segment = new Segment(graph.roads.get(roadID), graph.nodes.get(node1ID),
+					graph.nodes.get(node2ID), length, geometry, first, geometry.size - first);
+			list.add(segment);
+		}
+		geometry.trim();
+		return list;
+	}
+
+	/**
+	 * Reads the polygons file, which is in Polish map format: each polygon is
+	 * a [POLYGON] section with a Type= line and one or more DataN= lines of
+	 * (lat,lon) points, N being the level of detail. Only the most detailed
+	 * level each polygon has is kept. Lines about anything else are skipped.
+	 */
+	public static Polygons parsePolygons(File polygons) {
+		Polygons.Builder shapes = new Polygons.Builder();
+
+		try {
+			TabReader reader = new TabReader(polygons);
+
+			while (reader.nextLine()) {
+				if (reader.startsWith("[POLYGON]")) {
+					shapes.start();
+				} else if (reader.startsWith("[END]")) {
+					shapes.end();
+				} else if (reader.startsWith("Type=0x")) {
+					shapes.setType(reader.nextHex());
+				} else if (reader.startsWith("Data")) {
+					int level = (int) reader.nextNumber();
+					if (!reader.skipPast('='))
+						throw reader.error("expected = after Data" + level);
+					if (!shapes.startRing(level))
+						continue;
+					while (reader.skipPast('(')) {
+						double lat = reader.nextNumber();
+						if (!reader.startsWith(","))
+							throw reader.error("expected a comma between latitude and longitude");
+						double lon = reader.nextNumber();
+						if (!reader.startsWith(")"))
+							throw reader.error("expected ) after a longitude");
+						shapes.addPoint(Location.newFromLatLon(lat, lon));
+					}
+				}
+			}
 		} catch (IOException e) {
-			throw new RuntimeException("file reading failed.");
+			throw new RuntimeException("reading " + polygons.getName() + " failed.", e);
 		}
 
-		return set;
+		return shapes.build();
 	}
 
-	private static int asInt(String str) {
-		return Integer.parseInt(str);
+	/**
+	 * Reads the turn restrictions file. Each row is a banned turn: from the
+	 * first node along the first road to the middle node, then along the
+	 * second road to the last node.
+	 */
+	public static List<int[]> parseRestrictions(File restrictions) {
+		return parseTurns(restrictions, 5);
 	}
 
-	private static double asDouble(String str) {
-		return Double.parseDouble(str);
+	/**
+	 * Reads the turn costs file, which is optional. Each row is a turn, in
+	 * the same five columns as the restrictions file, then how many seconds
+	 * the turn takes.
+	 */
+	public static List<int[]> parseTurnCosts(File turnCosts) {
+		return parseTurns(turnCosts, 6);
+	}
+
+	private static List<int[]> parseTurns(File file, int columns) {
+		List<int[]> list = new ArrayList<int[]>();
+
+		try {
+			TabReader reader = new TabReader(file);
+			reader.nextLine(); // throw away the top line of the file.
+
+			while (reader.nextLine()) {
+				int[] row = new int[columns];
+				for (int i = 0; i < columns; i++)
+					row[i] = reader.nextInt();
+				if (columns > 5 && row[5] < 0)
+					throw reader.error("a turn can't take " + row[5] + " seconds");
+				list.add(row);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("reading " + file.getName() + " failed.", e);
+		}
+
+		return list;
 	}
 }
 
-// code for COMP261 assignments
\ No newline at end of file
+// code for COMP261 assignments
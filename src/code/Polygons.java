@@ -0,0 +1,231 @@
+package code;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * The shapes from the polygon file (lakes, coast, parks, buildings and so on),
+ * kept in flat arrays rather than as objects. Polygon p is made of rings
+ * ringOffsets[p] to ringOffsets[p + 1], and ring r of points pointOffsets[r]
+ * to pointOffsets[r + 1]; more than one ring means holes or more pieces.
+ * Every polygon's bounding box is worked out up front, so drawing can skip
+ * anything off the screen, or too small to see, without looking at its
+ * points.
+ *
+ * The type of each polygon is the Garmin type code from the file, which is
+ * what picks its colour.
+ */
+public class Polygons {
+	// drawn in this order, so that smaller things go on top of bigger ones.
+	private static final int URBAN = 0, GREEN = 1, WATER = 2, BUILT = 3;
+	private static final Color[] LAYER_COLOURS = { new Color(236, 233, 226),
+			new Color(206, 230, 192), new Color(178, 210, 236), new Color(226, 216, 200) };
+
+	public final int count;
+	final int[] types;
+	final int[] ringOffsets;
+	final int[] pointOffsets;
+	final double[] xs, ys;
+	final double[] minX, minY, maxX, maxY;
+	// polygon indices by layer, and in file order within each.
+	private final int[] order;
+	// for turning one ring into pixels; only ever used from the drawing
+	// thread.
+	private final int[] px, py;
+
+	private Polygons(int count, int[] types, int[] ringOffsets, int[] pointOffsets,
+			double[] xs, double[] ys) {
+		this.count = count;
+		this.types = types;
+		this.ringOffsets = ringOffsets;
+		this.pointOffsets = pointOffsets;
+		this.xs = xs;
+		this.ys = ys;
+		minX = new double[count];
+		minY = new double[count];
+		maxX = new double[count];
+		maxY = new double[count];
+		int longest = 0;
+		for (int p = 0; p < count; p++) {
+			minX[p] = minY[p] = Double.POSITIVE_INFINITY;
+			maxX[p] = maxY[p] = Double.NEGATIVE_INFINITY;
+			for (int r = ringOffsets[p]; r < ringOffsets[p + 1]; r++)
+				longest = Math.max(longest, pointOffsets[r + 1] - pointOffsets[r]);
+			for (int i = pointOffsets[ringOffsets[p]]; i < pointOffsets[ringOffsets[p + 1]]; i++) {
+				minX[p] = Math.min(minX[p], xs[i]);
+				minY[p] = Math.min(minY[p], ys[i]);
+				maxX[p] = Math.max(maxX[p], xs[i]);
+				maxY[p] = Math.max(maxY[p], ys[i]);
+			}
+		}
+		px = new int[longest];
+		py = new int[longest];
+
+		// a counting sort by layer keeps file order within each.
+		int[] starts = new int[LAYER_COLOURS.length + 1];
+		for (int p = 0; p < count; p++)
+			starts[layerOf(types[p]) + 1]++;
+		for (int l = 0; l < LAYER_COLOURS.length; l++)
+			starts[l + 1] += starts[l];
+		order = new int[count];
+		for (int p = 0; p < count; p++)
+			order[starts[layerOf(types[p])]++] = p;
+	}
+
+	/**
+	 * Returns which layer a Garmin polygon type goes in.
+	 */
+	static int layerOf(int type) {
+		if (type <= 0x03)
+			return URBAN;
+		if ((type >= 0x14 && type <= 0x1f) || (type >= 0x4e && type <= 0x53))
+			return GREEN;
+		if ((type >= 0x28 && type <= 0x29) || type == 0x32 || (type >= 0x3b && type <= 0x4d))
+			return WATER;
+		return BUILT;
+	}
+
+	/**
+	 * Fills in every polygon that's on the screen and at least a pixel
+	 * across.
+	 */
+	public void draw(Graphics2D g, Dimension area, Location origin, double scale) {
+		double left = origin.x, top = origin.y;
+		double right = left + area.width / scale, bottom = top - area.height / scale;
+		int layer = -1;
+		for (int p : order) {
+			if (maxX[p] < left || minX[p] > right || maxY[p] < bottom || minY[p] > top)
+				continue;
+			if ((maxX[p] - minX[p]) * scale < 1 && (maxY[p] - minY[p]) * scale < 1)
+				continue;
+			int l = layerOf(types[p]);
+			if (l != layer) {
+				layer = l;
+				g.setColor(LAYER_COLOURS[l]);
+			}
+			int firstRing = ringOffsets[p];
+			if (ringOffsets[p + 1] - firstRing == 1) {
+				int n = toPixels(firstRing, origin, scale);
+				g.fillPolygon(px, py, n);
+				continue;
+			}
+			// filled even-odd, a ring inside another is a hole in it, and
+			// one outside it is another piece.
+			Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+			for (int r = firstRing; r < ringOffsets[p + 1]; r++) {
+				int n = toPixels(r, origin, scale);
+				if (n == 0)
+					continue;
+				path.moveTo(px[0], py[0]);
+				for (int i = 1; i < n; i++)
+					path.lineTo(px[i], py[i]);
+				path.closePath();
+			}
+			g.fill(path);
+		}
+	}
+
+	/**
+	 * Works out where a ring's points are on the screen, the same way
+	 * Location.asPoint does, into px and py. Returns how many there are.
+	 */
+	private int toPixels(int ring, Location origin, double scale) {
+		int first = pointOffsets[ring];
+		int n = pointOffsets[ring + 1] - first;
+		for (int i = 0; i < n; i++) {
+			px[i] = (int) ((xs[first + i] - origin.x) * scale);
+			py[i] = (int) ((origin.y - ys[first + i]) * scale);
+		}
+		return n;
+	}
+
+	/**
+	 * Collects polygons a point at a time as they're read, into arrays that
+	 * grow as needed.
+	 */
+	static class Builder {
+		private int count = 0, rings = 0, points = 0;
+		private int[] types = new int[64];
+		private int[] ringOffsets = new int[65];
+		private int[] pointOffsets = new int[65];
+		private double[] xs = new double[1024], ys = new double[1024];
+		// the polygon being read: its type (or -1 if it hasn't got one yet)
+		// and the level of detail of its rings.
+		private boolean open = false;
+		private int type, level;
+
+		void start() {
+			open = true;
+			type = -1;
+			level = Integer.MAX_VALUE;
+			rings = ringOffsets[count];
+			points = pointOffsets[rings];
+		}
+
+		void setType(int type) {
+			this.type = type;
+		}
+
+		/**
+		 * Starts a ring of the given level of detail, 0 being the most.
+		 * Returns false if the polygon already has more detailed rings, and
+		 * this one should be skipped. A more detailed ring than the ones so
+		 * far replaces them.
+		 */
+		boolean startRing(int level) {
+			if (!open || level > this.level)
+				return false;
+			if (level < this.level) {
+				this.level = level;
+				rings = ringOffsets[count];
+				points = pointOffsets[rings];
+			}
+			if (rings + 2 > pointOffsets.length)
+				pointOffsets = Arrays.copyOf(pointOffsets, pointOffsets.length * 2);
+			pointOffsets[rings] = points;
+			rings++;
+			pointOffsets[rings] = points;
+			return true;
+		}
+
+		void addPoint(Location location) {
+			if (points == xs.length) {
+				xs = Arrays.copyOf(xs, points * 2);
+				ys = Arrays.copyOf(ys, points * 2);
+			}
+			xs[points] = location.x;
+			ys[points] = location.y;
+			points++;
+			pointOffsets[rings] = points;
+		}
+
+		/**
+		 * Finishes the polygon, keeping it if it has a type and some points.
+		 */
+		void end() {
+			if (open && type != -1 && points > pointOffsets[ringOffsets[count]]) {
+				if (count == types.length)
+					types = Arrays.copyOf(types, count * 2);
+				if (count + 2 > ringOffsets.length)
+					ringOffsets = Arrays.copyOf(ringOffsets, ringOffsets.length * 2);
+				types[count] = type;
+				count++;
+				ringOffsets[count] = rings;
+			}
+			open = false;
+		}
+
+		Polygons build() {
+			return new Polygons(count, Arrays.copyOf(types, count),
+					Arrays.copyOf(ringOffsets, count + 1),
+					Arrays.copyOf(pointOffsets, ringOffsets[count] + 1),
+					Arrays.copyOf(xs, pointOffsets[ringOffsets[count]]),
+					Arrays.copyOf(ys, pointOffsets[ringOffsets[count]]));
+		}
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,39 @@
+package code;
+
+/**
+ * Who's travelling: a car, a bicycle or someone on foot. Each profile has the
+ * roads it isn't allowed on, whether it has to follow one-way roads, and its
+ * own speed for each of the speed classes in the roads file.
+ */
+public enum Profile {
+	CAR(CompactGraph.NOT_FOR_CAR, true, new double[] { 5, 20, 40, 60, 80, 100, 110, 200 }),
+	BICYCLE(CompactGraph.NOT_FOR_BICYCLE, true, new double[] { 5, 15, 18, 18, 18, 18, 18, 18 }),
+	// walkers can go either way along one-way roads.
+	PEDESTRIAN(CompactGraph.NOT_FOR_PEDESTRIAN, false, new double[] { 5, 5, 5, 5, 5, 5, 5, 5 });
+
+	// the CompactGraph segment flag that rules a segment out.
+	public final byte forbidden;
+	public final boolean followsOneWay;
+	// km/h, indexed by Road.speedClass.
+	private final double[] speeds;
+
+	Profile(byte forbidden, boolean followsOneWay, double[] speeds) {
+		this.forbidden = forbidden;
+		this.followsOneWay = followsOneWay;
+		this.speeds = speeds;
+	}
+
+	public boolean allows(Road road) {
+		return (CompactGraph.accessFlags(road) & forbidden) == 0;
+	}
+
+	/**
+	 * Returns how fast this profile goes along a road, in km/h.
+	 */
+	public double speedOf(Road road) {
+		int c = Math.max(0, Math.min(speeds.length - 1, road.speedClass));
+		return speeds[c];
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,32 @@
+package code;
+
+import java.util.function.Predicate;
+
+/**
+ * Wraps another CostModel so that some roads can't be used at all, eg. to
+ * keep a vehicle off roads it isn't allowed on. Segments of those roads cost
+ * infinity, which the search treats as not being there. Costs on the other
+ * roads (and so the heuristic) are unchanged, so the heuristic stays
+ * admissible.
+ */
+public class RestrictedCost implements CostModel {
+	private final CostModel base;
+	private final Predicate<Road> allowed;
+
+	public RestrictedCost(CostModel base, Predicate<Road> allowed) {
+		this.base = base;
+		this.allowed = allowed;
+	}
+
+	public double edgeCost(Segment segment) {
+		if (!allowed.test(segment.road))
+			return Double.POSITIVE_INFINITY;
+		return base.edgeCost(segment);
+	}
+
+	public double heuristic(Location from, Location to) {
+		return base.heuristic(from, to);
+	}
+}
+
+// code for COMP261 assignments
@@ -1,7 +1,7 @@
 package code;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Road represents ... a road ... in our graph, which is some metadata and a
@@ -11,12 +11,23 @@ import java.util.HashSet;
  * @author tony
  */
 public class Road {
+	// bits of access.
+	public static final byte NOT_FOR_CAR = 1;
+	public static final byte NOT_FOR_PEDESTRIAN = 2;
+	public static final byte NOT_FOR_BICYCLE = 4;
+
 	public final int roadID;
 	public final String name, city;
-	public final Collection<Segment> components;
+	// the road's segments, in file order.
+	public final List<Segment> components;
 	public final int oneWay;
 	private int speedLimit;
+	// the speed column of the file, 0 to 7, which speedLimit is worked out
+	// from.
+	public final int speedClass;
 	public final int roadclass;
+	// who isn't allowed on the road, as NOT_FOR_ bits.
+	public final byte access;
 
 	public Road(int roadID, int type, String label, String city, int oneway,
 			int speed, int roadclass, int notforcar, int notforpede,
@@ -24,7 +35,7 @@ public class Road {
 		this.roadID = roadID;
 		this.city = city;
 		this.name = label;
-		this.components = new HashSet<Segment>();
+		this.components = new ArrayList<Segment>();
 		this.oneWay=oneway;
 		if(speed==0) {speedLimit =5; }
 		else if(speed==1) {speedLimit = 20;}
@@ -34,7 +45,11 @@ public class Road {
 		else if(speed==5) {speedLimit = 100;}
 		else if(speed==6) {speedLimit = 110;}
 		else if(speed==7) {speedLimit = 200;} // no limit i assume to be 200
+		this.speedClass = speed;
 		this.roadclass=roadclass;
+		this.access = (byte) ((notforcar != 0 ? NOT_FOR_CAR : 0)
+				| (notforpede != 0 ? NOT_FOR_PEDESTRIAN : 0)
+				| (notforbicy != 0 ? NOT_FOR_BICYCLE : 0));
 	}
 
 	public void addSegment(Segment seg) {
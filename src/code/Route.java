@@ -0,0 +1,82 @@
+package code;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a route query: the nodes and segments along the route, the
+ * route broken up into legs along each road, and what it cost. A Route with no
+ * nodes means there is no way to get from one end to the other.
+ */
+public class Route {
+	// node IDs along the route, from start to finish.
+	public final int[] nodeIDs;
+	public final List<Segment> segments;
+	public final List<Leg> legs;
+	// total cost under the edge weights that were used to find it.
+	public final double cost;
+	// total length, whatever the CostModel was.
+	public final double length;
+	// how many nodes the search had to settle to find this route.
+	public final int settled;
+
+	Route(int[] nodeIDs, List<Segment> segments, double[] weights, int settled) {
+		this.nodeIDs = nodeIDs;
+		this.segments = Collections.unmodifiableList(segments);
+		this.settled = settled;
+
+		// join up consecutive segments on the same road into one leg.
+		List<Leg> legs = new ArrayList<>();
+		double cost = 0, length = 0;
+		Leg leg = null;
+		for (Segment segment : segments) {
+			double segmentCost = weights[segment.index];
+			if (leg == null || !leg.roadName.equals(segment.road.name)) {
+				leg = new Leg(segment.road.name);
+				legs.add(leg);
+			}
+			leg.length += segment.length;
+			leg.cost += segmentCost;
+			cost += segmentCost;
+			length += segment.length;
+		}
+		this.legs = Collections.unmodifiableList(legs);
+		this.cost = nodeIDs.length == 0 ? Double.POSITIVE_INFINITY : cost;
+		this.length = nodeIDs.length == 0 ? Double.POSITIVE_INFINITY : length;
+	}
+
+	/**
+	 * Returns a route representing "you can't get there from here".
+	 */
+	static Route none(int settled) {
+		return new Route(new int[0], new ArrayList<>(), null, settled);
+	}
+
+	public boolean isFound() {
+		return nodeIDs.length > 0;
+	}
+
+	/**
+	 * A stretch of the route along one named road.
+	 */
+	public static class Leg {
+		public final String roadName;
+		private double length = 0;
+		private double cost = 0;
+
+		Leg(String roadName) {
+			this.roadName = roadName;
+		}
+
+		public double getLength() {
+			return length;
+		}
+
+		public double getCost() {
+			return cost;
+		}
+	}
+}
+
+// code for COMP261 assignments
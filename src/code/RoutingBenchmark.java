@@ -0,0 +1,168 @@
+package code;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * A small command line benchmark for the route search. It loads a map
+ * directory (the small map by default), picks a fixed set of random node pairs
+ * and times each kind of route search on them, printing the mean and worst
+ * latency and how many nodes each search had to settle.
+ *
+ * Run it with the map directory as the only argument, eg.
+ * java code.RoutingBenchmark src/data/large/
+ */
+public class RoutingBenchmark {
+	private static final int QUERIES = 200;
+	private static final int WARMUP = 50;
+	private static final long SEED = 261;
+
+	public static void main(String[] args) {
+		String path = args.length > 0 ? args[0] : "src/data/small/";
+		if (!path.endsWith(File.separator))
+			path += File.separator;
+
+		File polygons = new File(path + GUI.POLYS_FILENAME);
+		long loadStart = System.nanoTime();
+		Graph graph = new Graph(new File(path + GUI.NODES_FILENAME),
+				new File(path + GUI.ROADS_FILENAME), new File(path + GUI.SEGS_FILENAME),
+				polygons.exists() ? polygons : null);
+		System.out.printf("loaded %d nodes, %d segments in %.1f ms%n", graph.compact.nodeCount,
+				graph.compact.segmentCount, (System.nanoTime() - loadStart) / 1e6);
+
+		CompactGraph compact = graph.compact;
+		int[][] pairs = pairs(compact, QUERIES);
+		RoutingEngine engine = new RoutingEngine(compact);
+
+		CostModel time = new TimeCost(graph.roads.values());
+		for (CostModel cost : new CostModel[] { CostModel.DISTANCE, time }) {
+			String metric = cost == time ? "time" : "distance";
+			run(metric + ", A*", pairs, p -> engine.route(compact.nodeIDs[p[0]],
+					compact.nodeIDs[p[1]], cost, SearchMode.ASTAR));
+			run(metric + ", bidirectional", pairs, p -> engine.route(compact.nodeIDs[p[0]],
+					compact.nodeIDs[p[1]], cost, SearchMode.BIDIRECTIONAL));
+		}
+
+		// and again with landmarks.
+		for (CostModel cost : new CostModel[] { CostModel.DISTANCE, time }) {
+			String metric = cost == time ? "time" : "distance";
+			long altStart = System.nanoTime();
+			engine.setLandmarks(cost, Landmarks.compute(compact, engine.weights(cost),
+					Landmarks.DEFAULT_COUNT));
+			System.out.printf("%s landmarks computed in %.1f ms%n", metric,
+					(System.nanoTime() - altStart) / 1e6);
+			run(metric + ", A* + ALT", pairs, p -> engine.route(compact.nodeIDs[p[0]],
+					compact.nodeIDs[p[1]], cost, SearchMode.ASTAR));
+			run(metric + ", bidirectional + ALT", pairs, p -> engine.route(compact.nodeIDs[p[0]],
+					compact.nodeIDs[p[1]], cost, SearchMode.BIDIRECTIONAL));
+		}
+
+		// and on contraction hierarchies.
+		for (CostModel cost : new CostModel[] { CostModel.DISTANCE, time }) {
+			String metric = cost == time ? "time" : "distance";
+			long chStart = System.nanoTime();
+			ContractionHierarchy ch = new ContractionHierarchy(compact, engine.weights(cost));
+			engine.setContractionHierarchy(cost, ch);
+			System.out.printf("%s hierarchy built in %.1f ms, %d shortcuts%n", metric,
+					(System.nanoTime() - chStart) / 1e6, ch.getShortcutCount());
+			run(metric + ", CH", pairs, p -> engine.route(compact.nodeIDs[p[0]],
+					compact.nodeIDs[p[1]], cost, SearchMode.CH));
+		}
+
+		// the best route and two alternatives, from one pair of searches.
+		run("time, 3 alternatives", pairs, p -> {
+			List<Route> routes = engine.alternatives(compact.nodeIDs[p[0]], compact.nodeIDs[p[1]],
+					time, 3);
+			return routes.isEmpty() ? null : routes.get(0);
+		});
+
+		// a many-to-many matrix between the first origins and destinations.
+		int size = Math.min(100, compact.nodeCount);
+		int[] from = new int[size], to = new int[size];
+		for (int i = 0; i < size; i++) {
+			from[i] = compact.nodeIDs[pairs[i % pairs.length][0]];
+			to[i] = compact.nodeIDs[pairs[i % pairs.length][1]];
+		}
+		for (int i = 0; i < 3; i++)
+			engine.matrix(from, to, time, time);
+		long matrixStart = System.nanoTime();
+		engine.matrix(from, to, time, time);
+		System.out.printf("%dx%d time matrix in %.1f ms%n", size, size,
+				(System.nanoTime() - matrixStart) / 1e6);
+
+		// the old search, for comparison: a PriorityQueue that collects
+		// duplicate entries, and a list of visited nodes.
+		run("distance, list + PQ", pairs, p -> listSearch(compact, p));
+	}
+
+	static int[][] pairs(CompactGraph compact, int count) {
+		Random random = new Random(SEED);
+		int[][] pairs = new int[count][2];
+		for (int i = 0; i < count; i++) {
+			pairs[i][0] = random.nextInt(compact.nodeCount);
+			pairs[i][1] = random.nextInt(compact.nodeCount);
+		}
+		return pairs;
+	}
+
+	interface Query {
+		// returns the route found, or null if the query doesn't make Routes.
+		Route run(int[] pair);
+	}
+
+	/**
+	 * Warms up on the first few pairs, then times every pair and prints the
+	 * mean and worst latency and the mean number of nodes settled.
+	 */
+	static void run(String name, int[][] pairs, Query query) {
+		for (int i = 0; i < WARMUP; i++)
+			query.run(pairs[i % pairs.length]);
+
+		double total = 0, worst = 0;
+		long settled = 0;
+		for (int[] pair : pairs) {
+			long start = System.nanoTime();
+			Route route = query.run(pair);
+			double millis = (System.nanoTime() - start) / 1e6;
+			total += millis;
+			worst = Math.max(worst, millis);
+			if (route != null)
+				settled += route.settled;
+		}
+		System.out.printf("%-32s mean %8.3f ms   worst %8.3f ms", name, total / pairs.length,
+				worst);
+		if (settled > 0)
+			System.out.printf("   settled %8.1f", (double) settled / pairs.length);
+		System.out.println();
+	}
+
+	private static Route listSearch(CompactGraph compact, int[] pair) {
+		PriorityQueue<double[]> fringe = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+		ArrayList<Integer> visited = new ArrayList<>();
+		int goal = pair[1];
+		fringe.add(new double[] { pair[0], 0, 0 });
+		while (!fringe.isEmpty()) {
+			double[] elem = fringe.poll();
+			int v = (int) elem[0];
+			if (visited.contains(v))
+				continue;
+			visited.add(v);
+			if (v == goal)
+				return null;
+			for (int k = compact.outOffsets[v]; k < compact.outOffsets[v + 1]; k++) {
+				int w = compact.outTargets[k];
+				if (!visited.contains(w)) {
+					double g = elem[2] + compact.segmentLength[compact.outSegments[k]];
+					double h = Math.hypot(compact.xs[w] - compact.xs[goal], compact.ys[w] - compact.ys[goal]);
+					fringe.add(new double[] { w, g + h, g });
+				}
+			}
+		}
+		return null;
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,931 @@
+package code;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Answers route queries on a loaded map, without any of the GUI. The engine
+ * only reads the CompactGraph, and each thread gets its own SearchContext, so
+ * one engine can serve queries from any number of threads at once.
+ *
+ * Edge costs are worked out once per CostModel and kept in an array indexed by
+ * segment, so the search itself never calls back into the CostModel except for
+ * the heuristic.
+ *
+ * Segments can be closed or have their cost scaled while the engine is in
+ * use, through a WeightOverlay. Each query picks up the overlay once at the
+ * start and uses it throughout, so it always sees one consistent set of
+ * costs. Landmarks stay in use as long as no segment has got cheaper than
+ * when they were computed, since their bounds still hold; a contraction
+ * hierarchy only fits the costs it was built for, so after any change CH
+ * queries fall back to bidirectional search until a new one is set.
+ */
+public class RoutingEngine {
+	// for alternative routes, as fractions of the best route's cost: how much
+	// more one may cost, how much of it may be shared with the routes already
+	// chosen, and how long its plateau must be at least.
+	public static final double ALTERNATIVE_STRETCH = 0.3;
+	public static final double ALTERNATIVE_SHARING = 0.7;
+	public static final double ALTERNATIVE_PLATEAU = 0.2;
+
+	private final CompactGraph compact;
+	private final Map<CostModel, double[]> weights = new ConcurrentHashMap<>();
+	// the same weights with the overlay applied, for the overlay in basis.
+	private final Map<CostModel, Prepared<double[]>> overlaid = new ConcurrentHashMap<>();
+	private final Map<CostModel, Prepared<Landmarks>> landmarks = new ConcurrentHashMap<>();
+	private final Map<CostModel, Prepared<ContractionHierarchy>> hierarchies =
+			new ConcurrentHashMap<>();
+	private volatile WeightOverlay overlay = WeightOverlay.NONE;
+	private volatile TurnRestrictions turns = TurnRestrictions.NONE;
+	private final Map<CostModel, Double> uTurnPenalties = new ConcurrentHashMap<>();
+	private final Map<CostModel, Double> turnCostScales = new ConcurrentHashMap<>();
+	private final ThreadLocal<SearchContext> contexts;
+	// the second context for bidirectional searches, which need one per side.
+	private final ThreadLocal<SearchContext> backwardContexts;
+	// the length and time so far to each node, for matrix sweeps.
+	private final ThreadLocal<double[][]> sweepTotals;
+	// for edge-based searches, indexed by arc ID rather than node index.
+	private final ThreadLocal<SearchContext> arcContexts;
+	// the CompactGraph's offsets, targets and segments for each set of arcs.
+	private final int[][] outArcs, inArcs, bothArcs;
+
+	public RoutingEngine(CompactGraph compact) {
+		this.compact = compact;
+		this.contexts = ThreadLocal.withInitial(() -> new SearchContext(compact));
+		this.backwardContexts = ThreadLocal.withInitial(() -> new SearchContext(compact));
+		this.sweepTotals = ThreadLocal.withInitial(() -> new double[2][compact.nodeCount]);
+		this.arcContexts = ThreadLocal.withInitial(() -> new SearchContext(2 * compact.segmentCount));
+		this.outArcs = new int[][] { compact.outOffsets, compact.outTargets, compact.outSegments };
+		this.inArcs = new int[][] { compact.inOffsets, compact.inSources, compact.inSegments };
+		this.bothArcs = new int[][] { compact.bothOffsets, compact.bothTargets,
+				compact.bothSegments };
+	}
+
+	public CompactGraph getGraph() {
+		return compact;
+	}
+
+	/**
+	 * Finds the best route by car between two nodes under the given
+	 * CostModel, following one-way roads in their direction only.
+	 */
+	public Route route(int fromNodeID, int toNodeID, CostModel cost) {
+		return route(fromNodeID, toNodeID, cost, SearchMode.ASTAR);
+	}
+
+	/**
+	 * As route, but with a choice of how to search.
+	 */
+	public Route route(int fromNodeID, int toNodeID, CostModel cost, SearchMode mode) {
+		return route(fromNodeID, toNodeID, cost, mode, Profile.CAR);
+	}
+
+	/**
+	 * As route, but for any profile. The searches skip segments the profile
+	 * isn't allowed on with a test of their flags, rather than needing the
+	 * CostModel to make them infinite.
+	 */
+	public Route route(int fromNodeID, int toNodeID, CostModel cost, SearchMode mode,
+			Profile profile) {
+		int start = index(fromNodeID);
+		int goal = index(toNodeID);
+		// different components can't be joined, and the one-way roads can rule
+		// out more, so don't go looking.
+		if (!mayReach(start, goal, profile))
+			return Route.none(0);
+		WeightOverlay current = overlay;
+		switch (mode) {
+		case CH:
+			ContractionHierarchy ch = hierarchy(cost, current, profile);
+			if (ch != null)
+				return ch.query(compact, start, goal, context(), backwardContexts.get(),
+						weights(cost, current));
+			return bidirectional(start, goal, cost, current, profile);
+		case BIDIRECTIONAL:
+			return bidirectional(start, goal, cost, current, profile);
+		case EDGE_BASED:
+			return edgeBased(start, goal, cost, current, profile);
+		default:
+			return search(start, goal, cost, current, landmarks(cost, current, profile),
+					profile.forbidden, forwardArcs(profile));
+		}
+	}
+
+	/**
+	 * As route, but treats every road as two-way.
+	 */
+	public Route routeIgnoringOneWay(int fromNodeID, int toNodeID, CostModel cost) {
+		int start = index(fromNodeID);
+		int goal = index(toNodeID);
+		if (!compact.connected(start, goal))
+			return Route.none(0);
+		// landmarks are only lower bounds when following one-way roads. the
+		// undirected neighbours only keep one of any parallel segments, which
+		// may not be the cheapest, so search every segment both ways.
+		return search(start, goal, cost, overlay, null, (byte) 0, bothArcs);
+	}
+
+	private boolean mayReach(int start, int goal, Profile profile) {
+		return profile.followsOneWay ? compact.mayReach(start, goal)
+				: compact.connected(start, goal);
+	}
+
+	/**
+	 * Returns the offsets, targets and segments of the arcs out of each node
+	 * for a profile, or into each node if it's for a backward search.
+	 */
+	private int[][] forwardArcs(Profile profile) {
+		return profile.followsOneWay ? outArcs : bothArcs;
+	}
+
+	private int[][] backwardArcs(Profile profile) {
+		return profile.followsOneWay ? inArcs : bothArcs;
+	}
+
+	/**
+	 * Finds everything reachable from a node within limit under the given
+	 * CostModel (with TimeCost, limit is in the same units as its edge
+	 * costs), following one-way roads. This is Dijkstra that stops once the
+	 * cheapest node left on the fringe is past the limit.
+	 */
+	public Isochrone isochrone(int fromNodeID, CostModel cost, double limit) {
+		return isochrone(fromNodeID, cost, limit, Profile.CAR);
+	}
+
+	public Isochrone isochrone(int fromNodeID, CostModel cost, double limit, Profile profile) {
+		int start = index(fromNodeID);
+		double[] w = weights(cost);
+		int[][] arcs = forwardArcs(profile);
+		int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+		SearchContext search = context();
+		IndexedHeap fringe = search.heap;
+		search.reset();
+		search.reach(start, 0, -1, -1);
+		fringe.insertOrDecrease(start, 0);
+
+		int[] reached = new int[64];
+		int count = 0;
+		// arcs the limit runs out part way along, as segment and entry node.
+		// whether they're really frontier depends on the far end, which
+		// isn't known until the search is over.
+		int[] partSegment = new int[16], partEntry = new int[16];
+		int parts = 0;
+		while (!fringe.isEmpty() && fringe.peekKey() <= limit) {
+			int v = fringe.poll();
+			search.close(v);
+			if (count == reached.length)
+				reached = Arrays.copyOf(reached, count * 2);
+			reached[count++] = compact.nodeIDs[v];
+			double gv = search.g[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+					continue;
+				double g = gv + w[segment];
+				if (g > limit) {
+					// infinite weights are closed roads, not frontier.
+					if (w[segment] != Double.POSITIVE_INFINITY) {
+						if (parts == partSegment.length) {
+							partSegment = Arrays.copyOf(partSegment, parts * 2);
+							partEntry = Arrays.copyOf(partEntry, parts * 2);
+						}
+						partSegment[parts] = segment;
+						partEntry[parts++] = v;
+					}
+					continue;
+				}
+				if (search.isClosed(neighbour) || g >= search.gScore(neighbour))
+					continue;
+				search.reach(neighbour, g, v, segment);
+				fringe.insertOrDecrease(neighbour, g);
+			}
+		}
+
+		// every node within the limit is closed now. a segment whose far end
+		// is reachable some other way is only frontier if it can be travelled
+		// from both ends and the two reachable parts don't meet in the middle.
+		List<Segment> frontier = new ArrayList<>();
+		List<Node> entries = new ArrayList<>();
+		double[] fraction = new double[parts];
+		for (int i = 0; i < parts; i++) {
+			int segment = partSegment[i], v = partEntry[i];
+			int far = compact.otherEnd(segment, v);
+			double left = limit - search.g[v];
+			if (search.isClosed(far)) {
+				boolean backwards = !profile.followsOneWay
+						|| (compact.segmentFlags[segment] & CompactGraph.ONE_WAY) == 0;
+				if (!backwards || left + (limit - search.g[far]) >= w[segment])
+					continue;
+			}
+			fraction[frontier.size()] = left / w[segment];
+			frontier.add(compact.segments[segment]);
+			entries.add(compact.nodes[v]);
+		}
+		return new Isochrone(fromNodeID, limit, Arrays.copyOf(reached, count), frontier,
+				entries, Arrays.copyOf(fraction, frontier.size()));
+	}
+
+	/**
+	 * Works out the length and travel time of the best route under cost from
+	 * every origin to every destination, following one-way roads. time is the
+	 * CostModel to measure travel time with. Each origin gets one Dijkstra
+	 * sweep that stops once every destination is settled, and the sweeps are
+	 * run in parallel.
+	 */
+	public TravelMatrix matrix(int[] fromNodeIDs, int[] toNodeIDs, CostModel cost,
+			CostModel time) {
+		return matrix(fromNodeIDs, toNodeIDs, cost, time, Profile.CAR);
+	}
+
+	public TravelMatrix matrix(int[] fromNodeIDs, int[] toNodeIDs, CostModel cost,
+			CostModel time, Profile profile) {
+		int[] origins = new int[fromNodeIDs.length];
+		for (int i = 0; i < origins.length; i++)
+			origins[i] = index(fromNodeIDs[i]);
+		int[] targets = new int[toNodeIDs.length];
+		boolean[] isTarget = new boolean[compact.nodeCount];
+		int[] distinct = new int[toNodeIDs.length];
+		int distinctCount = 0;
+		for (int j = 0; j < targets.length; j++) {
+			targets[j] = index(toNodeIDs[j]);
+			if (!isTarget[targets[j]]) {
+				isTarget[targets[j]] = true;
+				distinct[distinctCount++] = targets[j];
+			}
+		}
+		int[] unique = Arrays.copyOf(distinct, distinctCount);
+		WeightOverlay current = overlay;
+		double[] w = weights(cost, current);
+		double[] tw = weights(time, current);
+		double[][] distance = new double[origins.length][];
+		double[][] travel = new double[origins.length][];
+
+		IntStream.range(0, origins.length).parallel().forEach(i -> {
+			SearchContext search = context();
+			double[][] totals = sweepTotals.get();
+			// a sweep can only ever settle the targets it might reach, so
+			// it shouldn't wait for the others.
+			int reachable = 0;
+			for (int target : unique)
+				if (mayReach(origins[i], target, profile))
+					reachable++;
+			sweep(origins[i], isTarget, reachable, w, tw, profile, search, totals[0], totals[1]);
+			double[] d = new double[targets.length];
+			double[] t = new double[targets.length];
+			for (int j = 0; j < targets.length; j++) {
+				int v = targets[j];
+				boolean found = search.isClosed(v);
+				d[j] = found ? totals[0][v] : Double.POSITIVE_INFINITY;
+				t[j] = found ? totals[1][v] : Double.POSITIVE_INFINITY;
+			}
+			distance[i] = d;
+			travel[i] = t;
+		});
+		return new TravelMatrix(fromNodeIDs.clone(), toNodeIDs.clone(), distance, travel);
+	}
+
+	/**
+	 * Dijkstra from start under weights w, until every target is settled,
+	 * keeping the length and time (under tw) of the path to each node. Those
+	 * are only meaningful for nodes the search has reached.
+	 */
+	private void sweep(int start, boolean[] isTarget, int targetCount, double[] w, double[] tw,
+			Profile profile, SearchContext search, double[] length, double[] time) {
+		int[][] arcs = forwardArcs(profile);
+		int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+		IndexedHeap fringe = search.heap;
+		search.reset();
+		search.reach(start, 0, -1, -1);
+		length[start] = 0;
+		time[start] = 0;
+		fringe.insertOrDecrease(start, 0);
+		int left = targetCount;
+		while (!fringe.isEmpty() && left > 0) {
+			int v = fringe.poll();
+			search.close(v);
+			if (isTarget[v])
+				left--;
+			double gv = search.g[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+					continue;
+				double g = gv + w[segment];
+				if (search.isClosed(neighbour) || g >= search.gScore(neighbour))
+					continue;
+				search.reach(neighbour, g, v, segment);
+				length[neighbour] = length[v] + compact.segmentLength[segment];
+				time[neighbour] = time[v] + tw[segment];
+				fringe.insertOrDecrease(neighbour, g);
+			}
+		}
+	}
+
+	/**
+	 * Returns the cost of every segment under a CostModel, indexed by segment
+	 * index, with the current overlay applied.
+	 */
+	double[] weights(CostModel cost) {
+		return weights(cost, overlay);
+	}
+
+	private double[] weights(CostModel cost, WeightOverlay current) {
+		double[] base = weights.computeIfAbsent(cost, c -> {
+			double[] w = new double[compact.segmentCount];
+			for (int s = 0; s < w.length; s++)
+				w[s] = c.edgeCost(compact.segments[s]);
+			return w;
+		});
+		if (current.isEmpty())
+			return base;
+		Prepared<double[]> cached = overlaid.get(cost);
+		if (cached != null && cached.basis == current)
+			return cached.value;
+		double[] w = current.apply(base);
+		overlaid.put(cost, new Prepared<>(w, current));
+		return w;
+	}
+
+	public WeightOverlay getOverlay() {
+		return overlay;
+	}
+
+	/**
+	 * Closes a segment to all traffic until the overlay is cleared.
+	 */
+	public synchronized void closeSegment(Segment segment) {
+		overlay = overlay.closed(segment.index, compact.segmentCount);
+	}
+
+	/**
+	 * Multiplies a segment's cost by factor, eg. 2 for traffic moving at half
+	 * speed. This replaces any earlier factor or closure on it.
+	 */
+	public synchronized void scaleSegment(Segment segment, double factor) {
+		overlay = overlay.scaled(segment.index, factor, compact.segmentCount);
+	}
+
+	/**
+	 * Puts every segment back to its normal cost.
+	 */
+	public synchronized void clearOverlay() {
+		overlay = WeightOverlay.NONE;
+	}
+
+	/**
+	 * Sets the banned turns that SearchMode.EDGE_BASED queries obey, and the
+	 * turn costs they charge.
+	 */
+	public void setTurnRestrictions(TurnRestrictions restrictions) {
+		turns = restrictions;
+	}
+
+	/**
+	 * Sets what a U-turn (going straight back along the segment you came in
+	 * on) adds to the cost of an EDGE_BASED route, in the CostModel's own
+	 * units. It's 0 unless this is called.
+	 */
+	public void setUTurnPenalty(CostModel cost, double penalty) {
+		uTurnPenalties.put(cost, penalty);
+	}
+
+	/**
+	 * Sets what one second of a turn's delay (from the turn costs file) adds
+	 * to the cost of an EDGE_BASED route, in the CostModel's own units; eg.
+	 * 1 / 3600 for a CostModel in hours. It's 0 unless this is called, so turn
+	 * costs are ignored.
+	 */
+	public void setTurnCostScale(CostModel cost, double perSecond) {
+		turnCostScales.put(cost, perSecond);
+	}
+
+	/**
+	 * Gives the engine landmarks to tighten the A* heuristic for one
+	 * CostModel. They must have been computed with weights(cost).
+	 */
+	public void setLandmarks(CostModel cost, Landmarks alt) {
+		WeightOverlay current = overlay;
+		if (!alt.matches(compact, weights(cost, current)))
+			throw new IllegalArgumentException("landmarks were computed for different weights");
+		landmarks.put(cost, new Prepared<>(alt, current));
+	}
+
+	/**
+	 * Gives the engine a contraction hierarchy for one CostModel, for
+	 * SearchMode.CH queries. It must have been built with weights(cost).
+	 */
+	public void setContractionHierarchy(CostModel cost, ContractionHierarchy ch) {
+		WeightOverlay current = overlay;
+		if (!ch.matches(compact, weights(cost, current)))
+			throw new IllegalArgumentException("hierarchy was built for different weights");
+		hierarchies.put(cost, new Prepared<>(ch, current));
+	}
+
+	/**
+	 * Returns true if there's a contraction hierarchy for this CostModel but
+	 * the overlay has changed since it was built, so it needs building again
+	 * with weights(cost).
+	 */
+	public boolean isContractionHierarchyStale(CostModel cost) {
+		Prepared<ContractionHierarchy> ch = hierarchies.get(cost);
+		return ch != null && ch.basis != overlay;
+	}
+
+	/**
+	 * Returns the landmarks to use for a query, or null if there aren't any
+	 * or they might overestimate. They were worked out following one-way
+	 * roads, so they're no good for a profile that doesn't.
+	 */
+	private Landmarks landmarks(CostModel cost, WeightOverlay current, Profile profile) {
+		Prepared<Landmarks> alt = landmarks.get(cost);
+		if (alt == null || !profile.followsOneWay)
+			return null;
+		return alt.usableWith(current) ? alt.value : null;
+	}
+
+	private ContractionHierarchy hierarchy(CostModel cost, WeightOverlay current,
+			Profile profile) {
+		Prepared<ContractionHierarchy> ch = hierarchies.get(cost);
+		if (ch == null || ch.basis != current || ch.value.getProfile() != profile)
+			return null;
+		return ch.value;
+	}
+
+	/**
+	 * Returns a lower bound on the cost from one node index to another: the
+	 * CostModel's own heuristic, or the landmark bound if that's bigger. The
+	 * heuristic is scaled down if the overlay has made anything cheaper.
+	 */
+	private double estimate(CostModel cost, WeightOverlay current, Landmarks alt, int from,
+			int to) {
+		double h = cost.heuristic(compact.nodes[from].location, compact.nodes[to].location)
+				* current.minFactor;
+		return alt == null ? h : Math.max(h, alt.lowerBound(from, to));
+	}
+
+	SearchContext context() {
+		return contexts.get();
+	}
+
+	private int index(int nodeID) {
+		int index = compact.indexOf(nodeID);
+		if (index == -1)
+			throw new IllegalArgumentException("no node with ID " + nodeID);
+		return index;
+	}
+
+	/**
+	 * A* from start to goal over the given CSR arrays.
+	 */
+	private Route search(int start, int goal, CostModel cost, WeightOverlay current,
+			Landmarks alt, byte forbidden, int[][] arcs) {
+		int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+		double[] w = weights(cost, current);
+		SearchContext search = context();
+		IndexedHeap fringe = search.heap;
+		search.reset();
+		search.reach(start, 0, -1, -1);
+		fringe.insertOrDecrease(start, estimate(cost, current, alt, start, goal));
+		int settled = 0;
+		while (!fringe.isEmpty()) {
+			int v = fringe.poll();
+			search.close(v);
+			settled++;
+			if (v == goal)
+				return buildRoute(search, goal, w, settled);
+			double gv = search.g[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				if (search.isClosed(neighbour))
+					continue;
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & forbidden) != 0)
+					continue;
+				double g = gv + w[segment];
+				// an infinite weight never passes this test, so closed
+				// segments drop out here.
+				if (g < search.gScore(neighbour)) {
+					search.reach(neighbour, g, v, segment);
+					fringe.insertOrDecrease(neighbour,
+							g + estimate(cost, current, alt, neighbour, goal));
+				}
+			}
+		}
+		return Route.none(settled);
+	}
+
+	/**
+	 * Bidirectional A*: a forward search from the start over outgoing arcs and
+	 * a backward search from the goal over incoming arcs, expanding whichever
+	 * side has the smaller fringe.
+	 *
+	 * Both sides use the average potential p(v) = (h(v, goal) - h(start, v)) / 2
+	 * (the backward side uses -p), so that they're really one Dijkstra search
+	 * on the same reduced edge costs. That gives the usual meet-in-the-middle
+	 * stopping rule: best is the cheapest start-goal path seen so far through a
+	 * node both sides have reached, and once the smallest forward key plus the
+	 * smallest backward key is at least best, no cheaper path is left.
+	 */
+	private Route bidirectional(int start, int goal, CostModel cost, WeightOverlay current,
+			Profile profile) {
+		double[] w = weights(cost, current);
+		Landmarks alt = landmarks(cost, current, profile);
+		int[][] forwardArcs = forwardArcs(profile);
+		int[][] backwardArcs = backwardArcs(profile);
+		SearchContext forward = context();
+		SearchContext backward = backwardContexts.get();
+		forward.reset();
+		backward.reset();
+		double startPotential = potential(cost, current, alt, start, goal, start);
+		double goalPotential = potential(cost, current, alt, start, goal, goal);
+		forward.reach(start, 0, -1, -1);
+		forward.heap.insertOrDecrease(start, startPotential);
+		backward.reach(goal, 0, -1, -1);
+		backward.heap.insertOrDecrease(goal, -goalPotential);
+
+		double best = start == goal ? 0 : Double.POSITIVE_INFINITY;
+		int meet = start == goal ? start : -1;
+		int settled = 0;
+		while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+			if (forward.heap.peekKey() + backward.heap.peekKey() >= best)
+				break;
+			boolean isForward = forward.heap.size() <= backward.heap.size();
+			SearchContext side = isForward ? forward : backward;
+			SearchContext other = isForward ? backward : forward;
+			int[][] arcs = isForward ? forwardArcs : backwardArcs;
+			int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+
+			int v = side.heap.poll();
+			side.close(v);
+			settled++;
+			double gv = side.g[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+					continue;
+				double g = gv + w[segment];
+				if (other.isReached(neighbour) && g + other.g[neighbour] < best) {
+					best = g + other.g[neighbour];
+					meet = neighbour;
+				}
+				if (side.isClosed(neighbour) || g >= side.gScore(neighbour))
+					continue;
+				side.reach(neighbour, g, v, segment);
+				double p = potential(cost, current, alt, start, goal, neighbour);
+				side.heap.insertOrDecrease(neighbour, isForward ? g + p : g - p);
+			}
+		}
+		if (meet == -1)
+			return Route.none(settled);
+		return joinRoute(forward, backward, meet, w, settled);
+	}
+
+	/**
+	 * Finds the best route by car and up to count - 1 alternatives to it, best
+	 * first. See the other alternatives.
+	 */
+	public List<Route> alternatives(int fromNodeID, int toNodeID, CostModel cost, int count) {
+		return alternatives(fromNodeID, toNodeID, cost, count, Profile.CAR);
+	}
+
+	/**
+	 * Finds the best route and up to count - 1 alternatives to it, best first,
+	 * by the plateau method. One Dijkstra search grows a tree out from the
+	 * start and another grows one back from the goal, each out to
+	 * ALTERNATIVE_STRETCH past the best cost. A plateau is a run of segments
+	 * that are in both trees; the route that goes out along the forward tree
+	 * to a plateau, along it, and back along the backward tree is best
+	 * between any two of its nodes at least as far apart as the plateau is
+	 * long, so a long plateau makes a sensible alternative rather than a
+	 * detour. The cheapest plateaus are taken first, skipping any route that
+	 * shares too much with the ones already taken or goes through a node
+	 * twice.
+	 *
+	 * Every alternative comes out of the same two trees, so this costs two
+	 * searches however many are asked for. Turn restrictions aren't taken
+	 * into account.
+	 */
+	public List<Route> alternatives(int fromNodeID, int toNodeID, CostModel cost, int count,
+			Profile profile) {
+		int start = index(fromNodeID);
+		int goal = index(toNodeID);
+		List<Route> routes = new ArrayList<>();
+		if (count < 1 || !mayReach(start, goal, profile))
+			return routes;
+		double[] w = weights(cost, overlay);
+		SearchContext forward = context();
+		SearchContext backward = backwardContexts.get();
+		forward.reset();
+		backward.reset();
+		forward.reach(start, 0, -1, -1);
+		forward.heap.insertOrDecrease(start, 0);
+		backward.reach(goal, 0, -1, -1);
+		backward.heap.insertOrDecrease(goal, 0);
+
+		// the nodes the forward side settles, in order.
+		int[] settledForward = forward.stack;
+		int forwardCount = 0;
+		double best = start == goal ? 0 : Double.POSITIVE_INFINITY;
+		int meet = start == goal ? start : -1;
+		int settled = 0;
+		while (true) {
+			double limit = best * (1 + ALTERNATIVE_STRETCH);
+			boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.peekKey() <= limit;
+			boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.peekKey() <= limit;
+			if (!forwardOpen && !backwardOpen)
+				break;
+			boolean isForward = forwardOpen
+					&& (!backwardOpen || forward.heap.peekKey() <= backward.heap.peekKey());
+			SearchContext side = isForward ? forward : backward;
+			SearchContext other = isForward ? backward : forward;
+			int[][] arcs = isForward ? forwardArcs(profile) : backwardArcs(profile);
+			int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+
+			int v = side.heap.poll();
+			side.close(v);
+			settled++;
+			if (isForward)
+				settledForward[forwardCount++] = v;
+			double gv = side.g[v];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int neighbour = targets[k];
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+					continue;
+				double g = gv + w[segment];
+				if (other.isReached(neighbour) && g + other.g[neighbour] < best) {
+					best = g + other.g[neighbour];
+					meet = neighbour;
+				}
+				if (side.isClosed(neighbour) || g >= side.gScore(neighbour))
+					continue;
+				side.reach(neighbour, g, v, segment);
+				side.heap.insertOrDecrease(neighbour, g);
+			}
+		}
+		if (meet == -1)
+			return routes;
+		Route primary = joinRoute(forward, backward, meet, w, settled);
+		routes.add(primary);
+		if (best == 0)
+			return routes;
+
+		// each plateau, found from its end nearest the goal: its cost, and how
+		// long it is.
+		int[] ends = new int[16];
+		double[] costs = new double[16];
+		double[] lengths = new double[16];
+		int candidates = 0;
+		for (int i = 0; i < forwardCount; i++) {
+			int v = settledForward[i];
+			if (!backward.isClosed(v) || !onPlateau(forward, backward, v))
+				continue;
+			int next = backward.parentOf(v);
+			if (next != -1 && forward.parentOf(next) == v && forward.isClosed(next)
+					&& backward.isClosed(next) && onPlateau(forward, backward, next))
+				continue;
+			double total = forward.g[v] + backward.g[v];
+			int first = v;
+			while (onPlateau(forward, backward, first))
+				first = forward.parentOf(first);
+			double length = forward.g[v] - forward.g[first];
+			if (total > best * (1 + ALTERNATIVE_STRETCH) || length < best * ALTERNATIVE_PLATEAU)
+				continue;
+			if (candidates == ends.length) {
+				ends = Arrays.copyOf(ends, candidates * 2);
+				costs = Arrays.copyOf(costs, candidates * 2);
+				lengths = Arrays.copyOf(lengths, candidates * 2);
+			}
+			ends[candidates] = v;
+			costs[candidates] = total;
+			lengths[candidates] = length;
+			candidates++;
+		}
+		Integer[] order = new Integer[candidates];
+		for (int i = 0; i < candidates; i++)
+			order[i] = i;
+		double[] byCost = costs, byLength = lengths;
+		Arrays.sort(order, (a, b) -> byCost[a] != byCost[b] ? Double.compare(byCost[a], byCost[b])
+				: Double.compare(byLength[b], byLength[a]));
+
+		boolean[] taken = new boolean[compact.segmentCount];
+		for (Segment segment : primary.segments)
+			taken[segment.index] = true;
+		int[] visited = new int[compact.nodeCount];
+		int stamp = 0;
+		for (int i = 0; i < candidates && routes.size() < count; i++) {
+			int end = ends[order[i]];
+			stamp++;
+			double shared = 0;
+			boolean simple = true;
+			for (int v = end; v != -1 && simple; v = forward.parentOf(v)) {
+				simple = visited[v] != stamp;
+				visited[v] = stamp;
+				if (v != start && taken[forward.parentSegmentOf(v)])
+					shared += w[forward.parentSegmentOf(v)];
+			}
+			for (int v = end; v != goal && simple; ) {
+				int segment = backward.parentSegmentOf(v);
+				if (taken[segment])
+					shared += w[segment];
+				v = backward.parentOf(v);
+				simple = visited[v] != stamp;
+				visited[v] = stamp;
+			}
+			if (!simple || shared > best * ALTERNATIVE_SHARING)
+				continue;
+			Route route = joinRoute(forward, backward, end, w, settled);
+			for (Segment segment : route.segments)
+				taken[segment.index] = true;
+			routes.add(route);
+		}
+		return routes;
+	}
+
+	/**
+	 * Returns true if the segment from v's parent in the forward tree to v
+	 * is also in the backward tree, so v is on a plateau and isn't its first
+	 * node. v has to be settled on both sides.
+	 */
+	private static boolean onPlateau(SearchContext forward, SearchContext backward, int v) {
+		int u = forward.parentOf(v);
+		return u != -1 && backward.isClosed(u) && backward.parentOf(u) == v
+				&& backward.parentSegmentOf(u) == forward.parentSegmentOf(v);
+	}
+
+	/**
+	 * A* over arcs: each arc's cost is reached through the arc before it, so a
+	 * turn from one to the next can be banned or charged for, as a U-turn or
+	 * from the turn costs. The heuristic is
+	 * the node-based one from the arc's head, which is still a lower bound
+	 * since turns only ever add to the cost.
+	 */
+	private Route edgeBased(int start, int goal, CostModel cost, WeightOverlay current,
+			Profile profile) {
+		double[] w = weights(cost, current);
+		Landmarks alt = landmarks(cost, current, profile);
+		int[][] arcs = forwardArcs(profile);
+		int[] offsets = arcs[0], targets = arcs[1], segs = arcs[2];
+		TurnRestrictions banned = turns;
+		double uTurn = uTurnPenalties.getOrDefault(cost, 0.0);
+		double perSecond = turnCostScales.getOrDefault(cost, 0.0);
+		if (start == goal)
+			return new Route(new int[] { compact.nodeIDs[start] }, new ArrayList<>(), w, 0);
+
+		SearchContext search = arcContexts.get();
+		IndexedHeap fringe = search.heap;
+		search.reset();
+		for (int k = offsets[start]; k < offsets[start + 1]; k++) {
+			int segment = segs[k];
+			if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+				continue;
+			int arc = compact.arcFrom(segment, start);
+			if (w[segment] < search.gScore(arc)) {
+				search.reach(arc, w[segment], -1, segment);
+				fringe.insertOrDecrease(arc,
+						w[segment] + estimate(cost, current, alt, compact.arcHead(arc), goal));
+			}
+		}
+		int settled = 0;
+		while (!fringe.isEmpty()) {
+			int a = fringe.poll();
+			search.close(a);
+			settled++;
+			int v = compact.arcHead(a);
+			if (v == goal)
+				return arcRoute(search, start, a, w, settled);
+			double ga = search.g[a];
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int segment = segs[k];
+				if ((compact.segmentFlags[segment] & profile.forbidden) != 0)
+					continue;
+				int b = compact.arcFrom(segment, v);
+				if (search.isClosed(b) || banned.isBanned(v, a, b))
+					continue;
+				double g = ga + w[segment] + (b == (a ^ 1) ? uTurn : 0);
+				if (perSecond != 0)
+					g += perSecond * banned.delay(v, a, b);
+				if (g < search.gScore(b)) {
+					search.reach(b, g, a, segment);
+					fringe.insertOrDecrease(b,
+							g + estimate(cost, current, alt, targets[k], goal));
+				}
+			}
+		}
+		return Route.none(settled);
+	}
+
+	/**
+	 * Follows the parent arcs back from the last arc of an edge-based search
+	 * to make a Route.
+	 */
+	private Route arcRoute(SearchContext search, int start, int last, double[] w, int settled) {
+		int count = 0;
+		for (int a = last; a != -1; a = search.parentOf(a))
+			count++;
+		int[] nodeIDs = new int[count + 1];
+		Segment[] segments = new Segment[count];
+		nodeIDs[0] = compact.nodeIDs[start];
+		int a = last;
+		for (int i = count - 1; i >= 0; i--) {
+			segments[i] = compact.segments[search.parentSegmentOf(a)];
+			nodeIDs[i + 1] = compact.nodeIDs[compact.arcHead(a)];
+			a = search.parentOf(a);
+		}
+		return new Route(nodeIDs, Arrays.asList(segments), w, settled);
+	}
+
+	private double potential(CostModel cost, WeightOverlay current, Landmarks alt, int start,
+			int goal, int v) {
+		return (estimate(cost, current, alt, v, goal) - estimate(cost, current, alt, start, v)) / 2;
+	}
+
+	/**
+	 * Something worked out from the weights under one overlay.
+	 */
+	private static class Prepared<T> {
+		final T value;
+		final WeightOverlay basis;
+		// the last overlay version checked, shifted up one, with the low bit
+		// set if it was usable; one field so it's always read consistently.
+		private volatile long verdict = -1;
+
+		Prepared(T value, WeightOverlay basis) {
+			this.value = value;
+			this.basis = basis;
+		}
+
+		/**
+		 * Returns true if lower bounds worked out under the basis still hold
+		 * under this overlay. The answer is kept until the overlay changes.
+		 */
+		boolean usableWith(WeightOverlay current) {
+			if (current == basis)
+				return true;
+			long last = verdict;
+			if (last >> 1 != current.version) {
+				last = current.version << 1 | (current.noCheaperThan(basis) ? 1 : 0);
+				verdict = last;
+			}
+			return (last & 1) == 1;
+		}
+	}
+
+	/**
+	 * Makes a Route out of the forward search tree from the start to the
+	 * meeting node and the backward search tree from there to the goal.
+	 */
+	Route joinRoute(SearchContext forward, SearchContext backward, int meet, double[] w,
+			int settled) {
+		int head = 0;
+		for (int v = meet; v != -1; v = forward.parentOf(v))
+			head++;
+		int tail = 0;
+		for (int v = backward.parentOf(meet); v != -1; v = backward.parentOf(v))
+			tail++;
+		int[] nodeIDs = new int[head + tail];
+		Segment[] segments = new Segment[head + tail - 1];
+		int v = meet;
+		for (int i = head - 1; i >= 0; i--) {
+			nodeIDs[i] = compact.nodeIDs[v];
+			if (i > 0)
+				segments[i - 1] = compact.segments[forward.parentSegmentOf(v)];
+			v = forward.parentOf(v);
+		}
+		v = meet;
+		for (int i = head; i < head + tail; i++) {
+			segments[i - 1] = compact.segments[backward.parentSegmentOf(v)];
+			v = backward.parentOf(v);
+			nodeIDs[i] = compact.nodeIDs[v];
+		}
+		return new Route(nodeIDs, Arrays.asList(segments), w, settled);
+	}
+
+	/**
+	 * Follows the parent pointers back from the goal to make a Route.
+	 */
+	Route buildRoute(SearchContext search, int goal, double[] w, int settled) {
+		int count = 0;
+		for (int v = goal; v != -1; v = search.parentOf(v))
+			count++;
+		int[] nodeIDs = new int[count];
+		Segment[] segments = new Segment[count - 1];
+		int v = goal;
+		for (int i = count - 1; i >= 0; i--) {
+			nodeIDs[i] = compact.nodeIDs[v];
+			if (i > 0)
+				segments[i - 1] = compact.segments[search.parentSegmentOf(v)];
+			v = search.parentOf(v);
+		}
+		return new Route(nodeIDs, Arrays.asList(segments), w, settled);
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,126 @@
+package code;
+
+import java.util.Arrays;
+
+/**
+ * Holds all the per-node scratch state of one search (A* parents and costs,
+ * or the depths and reach-backs of the articulation point search), indexed by
+ * CompactGraph node index. Keeping it here rather than in the Nodes means the
+ * graph itself is never written to by a search, so any number of searches can
+ * share one Graph as long as each has its own SearchContext.
+ *
+ * A context is reused between queries. Rather than clearing its arrays, reset()
+ * bumps a generation counter, and an entry only counts if it was written in the
+ * current generation.
+ */
+public class SearchContext {
+	private final int[] reached;
+	private final int[] closed;
+	private int generation = 0;
+
+	// only meaningful for nodes that have been reached this generation.
+	final double[] g;
+	final int[] parent;
+	final int[] parentSegment;
+	final int[] depth;
+	final int[] reachBack;
+	// next position in a node's adjacency slice, for searches that walk it
+	// a step at a time.
+	final int[] cursor;
+	// spare stack for depth first searches, big enough to hold every node.
+	final int[] stack;
+	// the fringe for best first searches.
+	final IndexedHeap heap;
+
+	public SearchContext(CompactGraph graph) {
+		this(graph.nodeCount);
+	}
+
+	/**
+	 * Makes a context for a graph of n nodes.
+	 */
+	public SearchContext(int n) {
+		reached = new int[n];
+		closed = new int[n];
+		g = new double[n];
+		parent = new int[n];
+		parentSegment = new int[n];
+		depth = new int[n];
+		reachBack = new int[n];
+		cursor = new int[n];
+		stack = new int[n];
+		heap = new IndexedHeap(n);
+	}
+
+	/**
+	 * Forgets everything about the last search, without clearing the arrays.
+	 */
+	public void reset() {
+		heap.clear();
+		generation++;
+		// after four billion resets the stamps wrap around, so clear them out
+		// properly once.
+		if (generation == 0) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(closed, 0);
+			generation = 1;
+		}
+	}
+
+	public boolean isReached(int node) {
+		return reached[node] == generation;
+	}
+
+	/**
+	 * Records that a node has been reached with cost g, via the given parent
+	 * node and segment (both -1 for the start node).
+	 */
+	public void reach(int node, double cost, int parentNode, int segment) {
+		reached[node] = generation;
+		g[node] = cost;
+		parent[node] = parentNode;
+		parentSegment[node] = segment;
+	}
+
+	public double gScore(int node) {
+		return reached[node] == generation ? g[node] : Double.POSITIVE_INFINITY;
+	}
+
+	public int parentOf(int node) {
+		return reached[node] == generation ? parent[node] : -1;
+	}
+
+	public int parentSegmentOf(int node) {
+		return reached[node] == generation ? parentSegment[node] : -1;
+	}
+
+	public boolean isClosed(int node) {
+		return closed[node] == generation;
+	}
+
+	public void close(int node) {
+		closed[node] = generation;
+	}
+
+	/**
+	 * Records a node's place in a depth first search tree, reached from
+	 * parentNode along segment, and points its cursor at the start of the
+	 * given adjacency slice.
+	 */
+	public void discover(int node, int d, int parentNode, int segment, int firstArc) {
+		reach(node, d, parentNode, segment);
+		depth[node] = d;
+		reachBack[node] = d;
+		cursor[node] = firstArc;
+	}
+
+	/**
+	 * Returns the depth first search depth of a node, or -1 if the current
+	 * search hasn't discovered it yet.
+	 */
+	public int depthOf(int node) {
+		return reached[node] == generation ? depth[node] : -1;
+	}
+}
+
+// code for COMP261 assignments
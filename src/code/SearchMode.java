@@ -0,0 +1,25 @@
+package code;
+
+/**
+ * The ways RoutingEngine can search for a route. Apart from EDGE_BASED they all
+ * find the same cost of route; they differ in how much of the map they have to
+ * look at to do it.
+ */
+public enum SearchMode {
+	// plain A* from the start.
+	ASTAR,
+	// A* forwards from the start and backwards from the goal at the same time,
+	// stopping when they meet.
+	BIDIRECTIONAL,
+	// a query on the contraction hierarchy for the CostModel. falls back to
+	// BIDIRECTIONAL if the engine hasn't been given one.
+	CH,
+	// A* over arcs (a segment and a direction) rather than nodes, so that it
+	// can obey the engine's turn restrictions and charge for U-turns and
+	// turn costs. this one can find a dearer route than the others, if the
+	// cheapest one has a banned or costly turn in it. the route's cost
+	// doesn't include what the turns added.
+	EDGE_BASED
+}
+
+// code for COMP261 assignments
@@ -1,14 +1,13 @@
 package code;
 
-import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Point;
 
 /**
  * A Segment is the most interesting class making up our graph, and represents
  * an edge between two Nodes. It knows the Road it belongs to as well as the
- * Nodes it joins, and contains a series of Locations that make up the length of
- * the Segment and can be used to render it.
+ * Nodes it joins, and has a series of points that make up the length of the
+ * Segment and can be used to render it. The points are kept in a Geometry
+ * shared with other segments.
  * 
  * @author tony
  */
@@ -17,37 +16,54 @@ public class Segment { // kind of like connection
 	public final Road road;
 	public final Node start, end;
 	public final double length;
-	public final Location[] points;
 	public final int roadID;
+	// the points are geometry's first to first + pointCount - 1.
+	final Geometry geometry;
+	final int first;
+	public final int pointCount;
+	// position of this segment in the CompactGraph arrays, set when it's built.
+	int index = -1;
 	
-	public Segment(Graph graph, int roadID, double length, int node1ID,
-			int node2ID, double[] coords) {
-		this.roadID = roadID;
-		this.road = graph.roads.get(roadID);
-		this.start = graph.nodes.get(node1ID);
-		this.end = graph.nodes.get(node2ID);
+	/**
+	 * Makes a segment without adding it to its road, so segments can be made
+	 * on several threads at once; Parser.wire does that afterwards.
+	 */
+	Segment(Road road, Node start, Node end, double length, Geometry geometry, int first,
+			int pointCount) {
+		this.roadID = road.roadID;
+		this.road = road;
+		this.start = start;
+		this.end = end;
 		this.length = length;
+		this.geometry = geometry;
+		this.first = first;
+		this.pointCount = pointCount;
+	}
 
-		points = new Location[coords.length / 2];
-		for (int i = 0; i < points.length; i++) {
-			points[i] = Location
-					.newFromLatLon(coords[2 * i], coords[2 * i + 1]);
-		}
-
-		this.road.addSegment(this);
-		this.start.addSegment(this);
-		this.end.addSegment(this);
+	/**
+	 * Returns the i'th point along the segment, from its start.
+	 */
+	public Location point(int i) {
+		return geometry.location(first + i);
 	}
 
+	/**
+	 * Draws the segment straight from the Geometry's arrays, working out each
+	 * point's pixel the same way Location.asPoint does.
+	 */
 	public void draw(Graphics g, Location origin, double scale) {
-		for (int i = 1; i < points.length; i++) {
-			Point p = points[i - 1].asPoint(origin, scale);
-			Point q = points[i].asPoint(origin, scale);
-			
-			g.drawLine(p.x, p.y, q.x, q.y);
+		int[] xs = geometry.xs, ys = geometry.ys;
+		int px = 0, py = 0;
+		for (int i = first; i < first + pointCount; i++) {
+			int qx = (int) ((xs[i] * Geometry.UNIT - origin.x) * scale);
+			int qy = (int) ((origin.y - ys[i] * Geometry.UNIT) * scale);
+			if (i > first)
+				g.drawLine(px, py, qx, qy);
+			px = qx;
+			py = qy;
 		}
 	}
-	
+
 }
 
 // code for COMP261 assignments
\ No newline at end of file
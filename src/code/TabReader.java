@@ -0,0 +1,336 @@
+package code;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a tab separated file a field at a time, straight out of a memory
+ * mapped buffer. Numbers are parsed from the bytes where they lie, so reading
+ * an int or a double makes no garbage at all; only text fields become
+ * Strings. Fields are split on runs of tabs, and lines end with \n or \r\n.
+ *
+ * Anything that isn't what was asked for is reported as a MapFormatException
+ * with the line it's on.
+ *
+ * For files that aren't tab separated, there's also enough to pick lines out
+ * by how they start and read numbers out of the middle of them.
+ *
+ * The rest of a file can be split into chunks that each start on a new line,
+ * and each chunk read by its own TabReader on its own thread.
+ */
+class TabReader {
+	// 10^0 to 10^22, every one exactly representable as a double.
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+	// up to this many significant digits, the digits fit in a double exactly.
+	private static final int EXACT_DIGITS = 15;
+
+	private final String fileName;
+	private final ByteBuffer buffer;
+	// where in the file this reader starts and stops.
+	private final int origin, limit;
+	private int pos;
+	// the line pos is on, counting from 1 at origin, or 0 before the first
+	// call to nextLine.
+	private int line = 0;
+	// fields read so far on this line.
+	private int field = 0;
+	// room to copy a text field into before it becomes a String.
+	private byte[] scratch = new byte[64];
+
+	TabReader(File file) throws IOException {
+		this.fileName = file.getName();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new MapFormatException(fileName, 0, "too big to map, at " + size + " bytes");
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			this.origin = 0;
+			this.limit = (int) size;
+		}
+	}
+
+	private TabReader(String fileName, ByteBuffer buffer, int origin, int limit) {
+		this.fileName = fileName;
+		// a buffer of its own, so chunks can be read from different threads.
+		this.buffer = buffer.duplicate();
+		this.origin = origin;
+		this.limit = limit;
+		this.pos = origin;
+	}
+
+	/**
+	 * Splits the lines after this one into about the given number of chunks,
+	 * each starting at the beginning of a line, and returns a reader for
+	 * each. This reader is left at the end.
+	 */
+	TabReader[] split(int parts) {
+		int start = pos;
+		if (line > 0) {
+			while (start < limit && buffer.get(start) != '\n')
+				start++;
+			if (start < limit)
+				start++;
+		}
+		List<TabReader> chunks = new ArrayList<>();
+		int from = start;
+		for (int k = 1; k <= parts && from < limit; k++) {
+			int to = k == parts ? limit
+					: Math.max(from, start + (int) ((long) (limit - start) * k / parts));
+			while (to < limit && (to == from || buffer.get(to - 1) != '\n'))
+				to++;
+			if (to > from)
+				chunks.add(new TabReader(fileName, buffer, from, to));
+			from = to;
+		}
+		pos = limit;
+		return chunks.toArray(new TabReader[0]);
+	}
+
+	/**
+	 * Moves on to the start of the next line that isn't blank, skipping
+	 * whatever is left of this one. Returns false if there are no more.
+	 */
+	boolean nextLine() {
+		if (line > 0) {
+			while (pos < limit && buffer.get(pos) != '\n')
+				pos++;
+			if (pos < limit)
+				pos++;
+		}
+		line++;
+		while (pos < limit && isLineEnd(buffer.get(pos))) {
+			if (buffer.get(pos) == '\n')
+				line++;
+			pos++;
+		}
+		field = 0;
+		return pos < limit;
+	}
+
+	/**
+	 * Returns true if this line has another field, skipping the tabs in
+	 * front of it.
+	 */
+	boolean hasField() {
+		while (pos < limit && buffer.get(pos) == '\t')
+			pos++;
+		return pos < limit && !isLineEnd(buffer.get(pos));
+	}
+
+	/**
+	 * Returns the line number in the whole file. For a chunk that means
+	 * counting the lines before it, so it's only for reporting problems.
+	 */
+	int line() {
+		int before = 0;
+		for (int i = 0; i < origin; i++)
+			if (buffer.get(i) == '\n')
+				before++;
+		return before + line;
+	}
+
+	int nextInt() {
+		startField();
+		int start = pos;
+		boolean negative = false;
+		if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+'))
+			negative = buffer.get(pos++) == '-';
+		long value = 0;
+		int digits = 0;
+		while (pos < limit && isDigit(buffer.get(pos))) {
+			value = value * 10 + (buffer.get(pos++) - '0');
+			if (++digits > 10)
+				break;
+		}
+		if (negative)
+			value = -value;
+		if (digits == 0 || digits > 10 || !atFieldEnd() || value != (int) value)
+			throw error("expected a whole number, found '" + text(start, true) + "'");
+		return (int) value;
+	}
+
+	/**
+	 * Reads a decimal number. Ones with at most EXACT_DIGITS significant
+	 * digits and no exponent (which is all of them in the map files) are
+	 * worked out as digits / 10^places, which is one correctly rounded
+	 * division of two exact values and so gives exactly what
+	 * Double.parseDouble would. Anything else goes through
+	 * Double.parseDouble.
+	 */
+	double nextDouble() {
+		startField();
+		return number(true);
+	}
+
+	/**
+	 * Reads a number that isn't a field of its own, like one in a list of
+	 * coordinates, up to the first byte that can't be part of it.
+	 */
+	double nextNumber() {
+		return number(false);
+	}
+
+	/**
+	 * Reads a whole number written in hex, without the 0x.
+	 */
+	int nextHex() {
+		int start = pos;
+		long value = 0;
+		int digits = 0;
+		while (pos < limit && Character.digit(buffer.get(pos), 16) != -1 && digits <= 8) {
+			value = value * 16 + Character.digit(buffer.get(pos++), 16);
+			digits++;
+		}
+		if (digits == 0 || digits > 8)
+			throw error("expected a hex number, found '" + text(start, true) + "'");
+		return (int) value;
+	}
+
+	/**
+	 * If the rest of the line starts with prefix, moves past it and returns
+	 * true.
+	 */
+	boolean startsWith(String prefix) {
+		if (limit - pos < prefix.length())
+			return false;
+		for (int i = 0; i < prefix.length(); i++)
+			if (buffer.get(pos + i) != prefix.charAt(i))
+				return false;
+		pos += prefix.length();
+		return true;
+	}
+
+	/**
+	 * Moves just past the next c on this line, or returns false if there
+	 * isn't one.
+	 */
+	boolean skipPast(char c) {
+		while (pos < limit && !isLineEnd(buffer.get(pos)))
+			if (buffer.get(pos++) == c)
+				return true;
+		return false;
+	}
+
+	private double number(boolean field) {
+		int start = pos;
+		boolean negative = false;
+		if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+'))
+			negative = buffer.get(pos++) == '-';
+		long digits = 0;
+		int significant = 0, places = 0, count = 0;
+		boolean point = false;
+		while (pos < limit) {
+			byte b = buffer.get(pos);
+			if (b == '.' && !point) {
+				point = true;
+			} else if (isDigit(b)) {
+				if (digits != 0 || b != '0')
+					significant++;
+				digits = digits * 10 + (b - '0');
+				count++;
+				if (point)
+					places++;
+			} else {
+				break;
+			}
+			pos++;
+			if (significant > EXACT_DIGITS)
+				break;
+		}
+		boolean ended = field ? atFieldEnd() : pos == limit || !isNumberByte(buffer.get(pos));
+		if (count > 0 && significant <= EXACT_DIGITS && places < POWERS_OF_TEN.length && ended) {
+			double value = digits / POWERS_OF_TEN[places];
+			return negative ? -value : value;
+		}
+		// the unusual cases.
+		String text = text(start, field);
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			throw error("expected a number, found '" + text + "'");
+		}
+	}
+
+	/**
+	 * Reads a text field, which may have spaces in it.
+	 */
+	String nextString() {
+		startField();
+		int start = pos;
+		skipField();
+		int length = pos - start;
+		if (length > scratch.length)
+			scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+		for (int i = 0; i < length; i++)
+			scratch[i] = buffer.get(start + i);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns an exception for a problem on the current line.
+	 */
+	MapFormatException error(String message) {
+		return new MapFormatException(fileName, line(), message);
+	}
+
+	private void startField() {
+		field++;
+		if (!hasField())
+			throw error("missing field " + field);
+	}
+
+	/**
+	 * Returns the text from start to the end of the field it's in, or of the
+	 * number it's in if it isn't a field, and moves pos there.
+	 */
+	private String text(int start, boolean field) {
+		pos = start;
+		if (field)
+			skipField();
+		else
+			while (pos < limit && isNumberByte(buffer.get(pos)))
+				pos++;
+		byte[] bytes = new byte[pos - start];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+		return new String(bytes, StandardCharsets.UTF_8).trim();
+	}
+
+	private void skipField() {
+		while (pos < limit && buffer.get(pos) != '\t' && !isLineEnd(buffer.get(pos)))
+			pos++;
+	}
+
+	private boolean atFieldEnd() {
+		if (pos == limit)
+			return true;
+		byte b = buffer.get(pos);
+		return b == '\t' || isLineEnd(b);
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static boolean isNumberByte(byte b) {
+		return isDigit(b) || b == '.' || b == '-' || b == '+' || b == 'e' || b == 'E';
+	}
+
+	private static boolean isLineEnd(byte b) {
+		return b == '\n' || b == '\r';
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,48 @@
+package code;
+
+import java.util.Collection;
+
+/**
+ * Quickest route, at the speed a Profile goes along each road. The heuristic
+ * is the straight line distance at the fastest speed of any road in the map,
+ * which is the only speed that's guaranteed to never overestimate; using an
+ * average speed instead lets A* skip past the quickest route when it runs
+ * along a motorway.
+ */
+public class TimeCost implements CostModel {
+	private final Profile profile;
+	private final double maxSpeed;
+
+	/**
+	 * Travel time by car.
+	 */
+	public TimeCost(Collection<Road> roads) {
+		this(roads, Profile.CAR);
+	}
+
+	public TimeCost(Collection<Road> roads, Profile profile) {
+		this.profile = profile;
+		double max = 0;
+		for (Road road : roads)
+			max = Math.max(max, profile.speedOf(road));
+		this.maxSpeed = max;
+	}
+
+	public double edgeCost(Segment segment) {
+		return segment.length / profile.speedOf(segment.road);
+	}
+
+	public double heuristic(Location from, Location to) {
+		return from.distance(to) / maxSpeed;
+	}
+
+	public double getMaxSpeed() {
+		return maxSpeed;
+	}
+
+	public Profile getProfile() {
+		return profile;
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,24 @@
+package code;
+
+/**
+ * The result of a many-to-many query: for every origin and destination, the
+ * length and the travel time of the best route between them. Both are for the
+ * same route, whichever CostModel chose it. Pairs with no route are infinite.
+ */
+public class TravelMatrix {
+	public final int[] fromNodeIDs;
+	public final int[] toNodeIDs;
+	// distance[i][j] and time[i][j] are for the route from fromNodeIDs[i] to
+	// toNodeIDs[j].
+	public final double[][] distance;
+	public final double[][] time;
+
+	TravelMatrix(int[] fromNodeIDs, int[] toNodeIDs, double[][] distance, double[][] time) {
+		this.fromNodeIDs = fromNodeIDs;
+		this.toNodeIDs = toNodeIDs;
+		this.distance = distance;
+		this.time = time;
+	}
+}
+
+// code for COMP261 assignments
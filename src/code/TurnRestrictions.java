@@ -0,0 +1,167 @@
+package code;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Banned turns and turn costs, for edge-based routing. A turn is a pair of
+ * arcs (see CompactGraph.arcFrom), one into a node and one out of it. Each
+ * turn is stored as one long, inArc * arcCount + outArc, in a sorted array,
+ * so even thousands of them take a few kilobytes and a lookup is a binary
+ * search; and only nodes that have a banned or costed turn at all need
+ * looking up. A costed turn has a delay in seconds, which RoutingEngine turns
+ * into each CostModel's own units.
+ */
+public class TurnRestrictions {
+	public static final TurnRestrictions NONE = new TurnRestrictions(new long[0], new long[0],
+			new double[0], new BitSet(), 0);
+
+	private final long[] banned;
+	// costed turns, and the delay for each in seconds.
+	private final long[] costed;
+	private final double[] delays;
+	// node indices with at least one banned or costed turn.
+	private final BitSet restricted;
+	private final long arcCount;
+
+	private TurnRestrictions(long[] banned, long[] costed, double[] delays, BitSet restricted,
+			long arcCount) {
+		this.banned = banned;
+		this.costed = costed;
+		this.delays = delays;
+		this.restricted = restricted;
+		this.arcCount = arcCount;
+	}
+
+	/**
+	 * Works out the banned turns from rows of the restrictions file (see
+	 * Parser.parseRestrictions).
+	 */
+	public TurnRestrictions(CompactGraph compact, List<int[]> bannedRows) {
+		this(compact, bannedRows, Collections.emptyList());
+	}
+
+	/**
+	 * Works out the banned turns from rows of the restrictions file, and the
+	 * turn costs from rows of the turn costs file (see Parser.parseTurnCosts),
+	 * whose last value is the delay in seconds. The files name roads and end
+	 * nodes rather than segments, so a row means turning from any segment of
+	 * the first road between the first node and the middle one onto any
+	 * segment of the second road between the middle node and the last. Rows
+	 * that don't match any segments are skipped. A later cost for the same
+	 * turn replaces an earlier one.
+	 */
+	public TurnRestrictions(CompactGraph compact, List<int[]> bannedRows, List<int[]> costRows) {
+		this.arcCount = 2L * compact.segmentCount;
+		this.restricted = new BitSet(compact.nodeCount);
+		long[] keys = new long[16];
+		int count = 0;
+		for (int[] row : bannedRows) {
+			for (long key : turns(compact, row)) {
+				if (count == keys.length)
+					keys = Arrays.copyOf(keys, count * 2);
+				keys[count++] = key;
+			}
+		}
+		Arrays.sort(keys, 0, count);
+		int unique = 0;
+		for (int i = 0; i < count; i++)
+			if (unique == 0 || keys[i] != keys[unique - 1])
+				keys[unique++] = keys[i];
+		this.banned = Arrays.copyOf(keys, unique);
+
+		TreeMap<Long, Double> costs = new TreeMap<>();
+		for (int[] row : costRows)
+			for (long key : turns(compact, row))
+				costs.put(key, (double) row[5]);
+		this.costed = new long[costs.size()];
+		this.delays = new double[costs.size()];
+		int i = 0;
+		for (Map.Entry<Long, Double> entry : costs.entrySet()) {
+			costed[i] = entry.getKey();
+			delays[i++] = entry.getValue();
+		}
+	}
+
+	/**
+	 * Returns the keys of the turns a row of either file names, and marks
+	 * its middle node as restricted if there are any.
+	 */
+	private long[] turns(CompactGraph compact, int[] row) {
+		int from = compact.indexOf(row[0]);
+		int via = compact.indexOf(row[2]);
+		int to = compact.indexOf(row[4]);
+		if (from == -1 || via == -1 || to == -1)
+			return new long[0];
+		int[] ins = arcs(compact, via, row[1], from, false);
+		int[] outs = arcs(compact, via, row[3], to, true);
+		long[] keys = new long[ins.length * outs.length];
+		int k = 0;
+		for (int in : ins)
+			for (int out : outs)
+				keys[k++] = in * arcCount + out;
+		if (keys.length > 0)
+			restricted.set(via);
+		return keys;
+	}
+
+	/**
+	 * Returns the arcs along the given road into (or out of) via from (or to)
+	 * the node index end.
+	 */
+	private static int[] arcs(CompactGraph compact, int via, int roadID, int end,
+			boolean outgoing) {
+		int[] offsets = outgoing ? compact.outOffsets : compact.inOffsets;
+		int[] others = outgoing ? compact.outTargets : compact.inSources;
+		int[] segs = outgoing ? compact.outSegments : compact.inSegments;
+		int[] found = new int[offsets[via + 1] - offsets[via]];
+		int count = 0;
+		for (int k = offsets[via]; k < offsets[via + 1]; k++) {
+			int s = segs[k];
+			if (compact.segments[s].roadID == roadID && others[k] == end && end != via)
+				found[count++] = compact.arcFrom(s, outgoing ? via : others[k]);
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Returns how many turns are banned.
+	 */
+	public int size() {
+		return banned.length;
+	}
+
+	/**
+	 * Returns how many turns have a cost.
+	 */
+	public int costCount() {
+		return costed.length;
+	}
+
+	/**
+	 * Returns true if you can't turn from inArc onto outArc at node index
+	 * via, where inArc leads into via.
+	 */
+	public boolean isBanned(int via, int inArc, int outArc) {
+		if (!restricted.get(via))
+			return false;
+		return Arrays.binarySearch(banned, inArc * arcCount + outArc) >= 0;
+	}
+
+	/**
+	 * Returns the delay in seconds for turning from inArc onto outArc at
+	 * node index via, or 0 if the turn has no cost.
+	 */
+	public double delay(int via, int inArc, int outArc) {
+		if (!restricted.get(via))
+			return 0;
+		int i = Arrays.binarySearch(costed, inArc * arcCount + outArc);
+		return i >= 0 ? delays[i] : 0;
+	}
+}
+
+// code for COMP261 assignments
@@ -0,0 +1,48 @@
+package code;
+
+/**
+ * Disjoint sets over the ints 0 to n - 1, with union by size and path
+ * halving, so any sequence of operations is as good as linear.
+ */
+class UnionFind {
+	private final int[] parent;
+	private final int[] size;
+
+	UnionFind(int n) {
+		parent = new int[n];
+		size = new int[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+	}
+
+	int find(int x) {
+		while (parent[x] != x) {
+			// point x at its grandparent on the way up.
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Puts a and b in the same set. Returns false if they already were.
+	 */
+	boolean union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a == b)
+			return false;
+		if (size[a] < size[b]) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+		parent[b] = a;
+		size[a] += size[b];
+		return true;
+	}
+}
+
+// code for COMP261 assignments
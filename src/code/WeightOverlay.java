@@ -0,0 +1,98 @@
+package code;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Changes to segment costs made at runtime, such as road closures and
+ * congestion, laid over the costs a CostModel gives. Each segment has a
+ * factor its cost is multiplied by: 1 normally, infinity if it's closed.
+ *
+ * An overlay never changes once it's made; closing or scaling a segment
+ * gives a new overlay with a new version number, and copies the factors to
+ * do it. So a query that picks up an overlay at the start sees the same
+ * costs all the way through, whatever happens meanwhile.
+ */
+public class WeightOverlay {
+	private static final AtomicLong versions = new AtomicLong();
+
+	/** No changes at all. */
+	public static final WeightOverlay NONE = new WeightOverlay(null);
+
+	public final long version;
+	// null when every factor is 1.
+	private final double[] factors;
+	// the smallest factor, or 1 if that's bigger. a heuristic that was a
+	// lower bound on the base costs is one on these once it's scaled by this.
+	public final double minFactor;
+
+	private WeightOverlay(double[] factors) {
+		this.version = factors == null ? 0 : versions.incrementAndGet();
+		this.factors = factors;
+		double min = 1;
+		if (factors != null)
+			for (double f : factors)
+				min = Math.min(min, f);
+		this.minFactor = min;
+	}
+
+	public boolean isEmpty() {
+		return factors == null;
+	}
+
+	public double factor(int segment) {
+		return factors == null ? 1 : factors[segment];
+	}
+
+	/**
+	 * Returns a new overlay with a segment's cost multiplied by factor,
+	 * instead of whatever it was before. A factor of infinity closes it.
+	 */
+	public WeightOverlay scaled(int segment, double factor, int segmentCount) {
+		if (!(factor > 0))
+			throw new IllegalArgumentException("factor must be positive, not " + factor);
+		double[] copy = factors == null ? ones(segmentCount) : factors.clone();
+		copy[segment] = factor;
+		return new WeightOverlay(copy);
+	}
+
+	public WeightOverlay closed(int segment, int segmentCount) {
+		return scaled(segment, Double.POSITIVE_INFINITY, segmentCount);
+	}
+
+	/**
+	 * Returns the base costs with the factors applied.
+	 */
+	double[] apply(double[] base) {
+		if (factors == null)
+			return base;
+		double[] w = new double[base.length];
+		for (int s = 0; s < w.length; s++)
+			// a closed segment is closed even if it cost nothing.
+			w[s] = factors[s] == Double.POSITIVE_INFINITY ? factors[s] : base[s] * factors[s];
+		return w;
+	}
+
+	/**
+	 * Returns true if no segment costs less under this overlay than under
+	 * the other one. Lower bounds worked out under the other one (like
+	 * landmarks) still hold under this one.
+	 */
+	boolean noCheaperThan(WeightOverlay other) {
+		if (other.factors == null && factors == null)
+			return true;
+		int n = factors != null ? factors.length : other.factors.length;
+		for (int s = 0; s < n; s++)
+			if (factor(s) < other.factor(s))
+				return false;
+		return true;
+	}
+
+	private static double[] ones(int n) {
+		double[] a = new double[n];
+		Arrays.fill(a, 1);
+		return a;
+	}
+}
+
+// code for COMP261 assignments